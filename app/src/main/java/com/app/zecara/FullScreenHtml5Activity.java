@@ -4,6 +4,9 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.MenuItem;
+import android.view.ViewGroup;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
@@ -15,14 +18,24 @@ import androidx.appcompat.widget.Toolbar;
 
 import com.app.zecara.model.ContentItem;
 import com.app.zecara.util.Html5ProjectManager;
+import com.app.zecara.util.HtmlTemplate;
+import com.app.zecara.util.ProgressOverlay;
+import com.app.zecara.util.ProjectResourceServer;
+import com.app.zecara.util.WebViewPool;
 
 public class FullScreenHtml5Activity extends AppCompatActivity {
     private static final String TAG = "FullScreenHtml5Activity";
     public static final String EXTRA_CONTENT_ITEM = "content_item";
+    private static final String STATE_HAND_OFF_HISTORY_INDEX = "hand_off_history_index";
     
     private WebView webView;
     private ContentItem contentItem;
     private Html5ProjectManager projectManager;
+    private ProgressOverlay progressOverlay;
+    private Html5ProjectManager.ProjectDownloadCallback downloadCallback;
+    private boolean handedOff; // Showing the feed tile's WebView instead of our own
+    private String handOffKey; // Pool content key the handed-off WebView was lent under
+    private int handOffHistoryIndex; // History entry the handed-off WebView showed when first claimed
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -43,6 +56,10 @@ public class FullScreenHtml5Activity extends AppCompatActivity {
 
         // Initialize project manager
         projectManager = new Html5ProjectManager(this);
+        if (isDownloadableProject()) {
+            // Keep the project on disk while this screen shows it
+            Html5ProjectManager.retainProject(contentItem.getId());
+        }
 
         // Set up toolbar
         Toolbar toolbar = findViewById(R.id.toolbar);
@@ -52,13 +69,46 @@ public class FullScreenHtml5Activity extends AppCompatActivity {
 
         // Set up WebView
         webView = findViewById(R.id.webView);
+        progressOverlay = new ProgressOverlay(findViewById(R.id.loadingOverlay));
+        claimFeedWebView(savedInstanceState);
         setupWebView();
         
         // Set up back navigation
         setupBackNavigation();
         
-        // Load HTML5 content
-        loadContent();
+        // Load HTML5 content, unless the feed's WebView already shows it
+        if (handedOff) {
+            Log.d(TAG, "Showing handed-off WebView for: " + contentItem.getId());
+            if (isDownloadableProject()) {
+                projectManager.touchProject(contentItem.getId());
+            }
+        } else {
+            loadContent();
+        }
+    }
+
+    /**
+     * Swap the layout's WebView for the one the feed tile handed off, if any
+     * @param savedInstanceState State of the previous instance if this one was recreated, else null
+     */
+    private void claimFeedWebView(Bundle savedInstanceState) {
+        String contentKey = WebViewPool.contentKey(contentItem);
+        WebView feedWebView = WebViewPool.getInstance(this).claimHandOff(contentKey, this);
+        if (feedWebView == null) {
+            return;
+        }
+        handOffKey = contentKey;
+        ViewGroup container = (ViewGroup) webView.getParent();
+        int index = container.indexOfChild(webView);
+        container.removeView(webView);
+        container.addView(feedWebView, index, webView.getLayoutParams());
+        webView.destroy();
+        webView = feedWebView;
+        handedOff = true;
+        // Earlier entries are the tile's own history (or a blank page), not pages opened here
+        handOffHistoryIndex = savedInstanceState != null && savedInstanceState.containsKey(STATE_HAND_OFF_HISTORY_INDEX)
+                ? savedInstanceState.getInt(STATE_HAND_OFF_HISTORY_INDEX)
+                : webView.copyBackForwardList().getCurrentIndex();
     }
 
     private void setupWebView() {
@@ -75,6 +125,11 @@ public class FullScreenHtml5Activity extends AppCompatActivity {
         webSettings.setAllowFileAccess(true);
         webSettings.setAllowContentAccess(true);
         
+        // Interactive, unlike feed tiles
+        webView.setClickable(true);
+        webView.setFocusable(true);
+        webView.setFocusableInTouchMode(true);
+        
         webView.setWebViewClient(new WebViewClient() {
             @Override
             public boolean shouldOverrideUrlLoading(WebView view, String url) {
@@ -83,6 +138,12 @@ public class FullScreenHtml5Activity extends AppCompatActivity {
                 return true;
             }
             
+            @Override
+            public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+                // Serve project resources that live inside an archive
+                return ProjectResourceServer.getInstance(view.getContext()).intercept(request);
+            }
+            
             @Override
             public void onPageFinished(WebView view, String url) {
                 super.onPageFinished(view, url);
@@ -91,9 +152,13 @@ public class FullScreenHtml5Activity extends AppCompatActivity {
         });
     }
 
+    private boolean isDownloadableProject() {
+        return contentItem.getProjectUrl() != null && !contentItem.getProjectUrl().isEmpty();
+    }
+
     private void loadContent() {
         // Load HTML5 content - prioritize downloadable projects
-        if (contentItem.getProjectUrl() != null && !contentItem.getProjectUrl().isEmpty()) {
+        if (isDownloadableProject()) {
             loadDownloadableProject();
         } else if (contentItem.getProjectPath() != null && !contentItem.getProjectPath().isEmpty()) {
             // Load multi-page HTML5 project from assets
@@ -101,8 +166,9 @@ public class FullScreenHtml5Activity extends AppCompatActivity {
             webView.loadUrl(projectUrl);
         } else if (contentItem.getHtmlContent() != null && !contentItem.getHtmlContent().isEmpty()) {
             // Load inline HTML content
-            String htmlContent = wrapHtmlContent(contentItem.getHtmlContent());
-            webView.loadDataWithBaseURL(null, htmlContent, "text/html", "UTF-8", null);
+            HtmlTemplate.Document document = HtmlTemplate.render(
+                    contentItem.getId(), contentItem.getHtmlContent(), HtmlTemplate.Variant.FULLSCREEN);
+            webView.loadDataWithBaseURL(document.baseUrl, document.html, "text/html", "UTF-8", null);
         } else {
             webView.loadData("<html><body><p>No content available</p></body></html>", "text/html", "UTF-8");
         }
@@ -112,7 +178,8 @@ public class FullScreenHtml5Activity extends AppCompatActivity {
         // Check if project is already downloaded
         String localPath = projectManager.getLocalProjectPath(contentItem.getId());
         if (localPath != null) {
-            // Load from local cache
+            // Load from local cache and keep it at the front of the eviction order
+            projectManager.touchProject(contentItem.getId());
             webView.loadUrl(localPath);
             return;
         }
@@ -120,78 +187,49 @@ public class FullScreenHtml5Activity extends AppCompatActivity {
         // Show loading state
         showLoadingState("Downloading project...");
 
-        // Download project from Firebase Storage
-        projectManager.downloadProject(
-            contentItem.getProjectUrl(), 
-            contentItem.getId(), 
-            new Html5ProjectManager.ProjectDownloadCallback() {
-                @Override
-                public void onSuccess(String localProjectPath) {
-                    // Load the downloaded project
-                    String indexUrl = "file://" + localProjectPath + "/index.html";
-                    runOnUiThread(() -> webView.loadUrl(indexUrl));
-                }
+        // Download project from Firebase Storage; if the feed is already downloading it
+        // (or a previous instance of this screen was), this attaches to that transfer
+        downloadCallback = new Html5ProjectManager.ProjectDownloadCallback() {
+            @Override
+            public void onSuccess(String localProjectPath) {
+                // Load the downloaded project (extracted directory or served archive)
+                String indexUrl = projectManager.getLocalProjectPath(contentItem.getId());
+                runOnUiThread(() -> {
+                    // Navigate once, straight to the real content
+                    progressOverlay.hide();
+                    webView.loadUrl(indexUrl);
+                });
+            }
 
-                @Override
-                public void onProgress(int percentage) {
-                    runOnUiThread(() -> 
-                        showLoadingState("Downloading... " + percentage + "%")
-                    );
-                }
+            @Override
+            public void onProgress(int percentage) {
+                runOnUiThread(() -> progressOverlay.showProgress(percentage));
+            }
 
-                @Override
-                public void onError(String error) {
-                    runOnUiThread(() -> showError("Download failed: " + error));
-                }
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> showError("Download failed: " + error));
             }
-        );
+        };
+        projectManager.downloadProject(contentItem.getProjectUrl(), contentItem.getId(),
+                contentItem.getProjectVersion(), downloadCallback);
     }
 
     private void showLoadingState(String message) {
-        String loadingHtml = "<html><body style='text-align: center; padding: 100px; font-family: Arial;'>" +
-            "<div style='color: #666; font-size: 18px;'>" +
-            "<div style='font-size: 48px; margin-bottom: 20px;'>📦</div>" +
-            "<div>" + message + "</div>" +
-            "</div></body></html>";
-        webView.loadDataWithBaseURL(null, loadingHtml, "text/html", "UTF-8", null);
+        progressOverlay.showMessage(message);
     }
 
     private void showError(String error) {
-        String errorHtml = "<html><body style='text-align: center; padding: 100px; font-family: Arial;'>" +
-            "<div style='color: #f44336; font-size: 18px;'>" +
-            "<div style='font-size: 48px; margin-bottom: 20px;'>⚠️</div>" +
-            "<div>Error: " + error + "</div>" +
-            "<div style='margin-top: 20px; font-size: 14px; color: #999;'>Tap back to return to feed</div>" +
-            "</div></body></html>";
-        webView.loadDataWithBaseURL(null, errorHtml, "text/html", "UTF-8", null);
-    }
-
-    private String wrapHtmlContent(String htmlContent) {
-        return "<html>" +
-               "<head>" +
-               "<meta name='viewport' content='width=device-width, initial-scale=1.0'>" +
-               "<style>" +
-               "body { margin: 0; padding: 16px; font-family: Arial, sans-serif; background-color: #f5f5f5; }" +
-               "img { max-width: 100%; height: auto; border-radius: 8px; }" +
-               "video { max-width: 100%; height: auto; border-radius: 8px; }" +
-               "h1, h2, h3 { margin-top: 0; color: #333; }" +
-               "p { line-height: 1.6; color: #666; }" +
-               ".card { background: white; border-radius: 12px; padding: 20px; box-shadow: 0 4px 8px rgba(0,0,0,0.1); }" +
-               "button { background: #2196F3; color: white; border: none; padding: 12px 24px; border-radius: 8px; cursor: pointer; font-size: 16px; }" +
-               "button:hover { background: #1976D2; }" +
-               "</style>" +
-               "</head>" +
-               "<body>" +
-               "<div class='card'>" + htmlContent + "</div>" +
-               "</body>" +
-               "</html>";
+        progressOverlay.showError(error + "\nTap back to return to feed");
     }
 
     private void setupBackNavigation() {
         OnBackPressedCallback callback = new OnBackPressedCallback(true) {
             @Override
             public void handleOnBackPressed() {
-                if (webView.canGoBack()) {
+                boolean atHandOffPage = handedOff
+                        && webView.copyBackForwardList().getCurrentIndex() <= handOffHistoryIndex;
+                if (webView.canGoBack() && !atHandOffPage) {
                     webView.goBack();
                 } else {
                     finish();
@@ -201,6 +239,65 @@ public class FullScreenHtml5Activity extends AppCompatActivity {
         getOnBackPressedDispatcher().addCallback(this, callback);
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (handedOff) {
+            outState.putInt(STATE_HAND_OFF_HISTORY_INDEX, handOffHistoryIndex);
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (webView != null) {
+            webView.onResume();
+            WebViewPool.getInstance(this).onHostResumed(webView);
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Pause scripts, animations and media while backgrounded
+        if (webView != null) {
+            webView.onPause();
+            WebViewPool.getInstance(this).onHostPaused(webView);
+        }
+        if (isFinishing()) {
+            // Return it now rather than in onDestroy, which runs after the feed has resumed
+            returnFeedWebView();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Stop receiving events for a download still running, e.g. across a rotation
+        if (downloadCallback != null && projectManager != null) {
+            projectManager.detachCallback(contentItem.getId(), downloadCallback);
+        }
+        if (contentItem != null && isDownloadableProject()) {
+            Html5ProjectManager.releaseProject(contentItem.getId());
+        }
+        if (handedOff && isChangingConfigurations()
+                && WebViewPool.getInstance(this).beginHandOff(handOffKey, webView)) {
+            // Kept for the recreated activity
+            handedOff = false;
+        }
+        returnFeedWebView();
+    }
+
+    /**
+     * Give the feed tile its WebView back, with whatever state the user left it in
+     */
+    private void returnFeedWebView() {
+        if (handedOff) {
+            handedOff = false;
+            WebViewPool.getInstance(this).returnHandOff(handOffKey, webView);
+        }
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
@@ -1,10 +1,12 @@
 package com.app.zecara;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.ViewTreeObserver;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -16,7 +18,13 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.app.zecara.adapter.FeedAdapter;
 import com.app.zecara.model.ContentItem;
 import com.app.zecara.service.ContentService;
+import com.app.zecara.util.AvatarLoader;
+import com.app.zecara.util.ExtractionEngine;
+import com.app.zecara.util.FeedPrefetcher;
+import com.app.zecara.util.FeedTelemetry;
 import com.app.zecara.util.Html5ProjectManager;
+import com.app.zecara.util.LiveTileScheduler;
+import com.app.zecara.util.StartupTrace;
 import com.app.zecara.util.WebViewPool;
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInClient;
@@ -39,11 +47,19 @@ public class HomeActivity extends AppCompatActivity implements FeedAdapter.OnFee
     private RecyclerView feedRecyclerView;
     private SwipeRefreshLayout swipeRefreshLayout;
     private FeedAdapter feedAdapter;
+    private FeedPrefetcher feedPrefetcher;
+    private LiveTileScheduler liveTileScheduler;
+    private FeedTelemetry.FrameTracker frameTracker;
     private List<ContentItem> feedItems;
+    private ContentService.ContentPage lastPage; // Most recently appended page, the cursor for the next one
+    private boolean loadingNextPage;
+    private int feedGeneration; // Bumped on refresh so pages of the previous feed are dropped
+    private boolean firstFeedFrameScheduled;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StartupTrace.mark("home_create");
         setContentView(R.layout.activity_home);
         
         // Initialize Firebase Auth
@@ -89,9 +105,24 @@ public class HomeActivity extends AppCompatActivity implements FeedAdapter.OnFee
         feedAdapter.setOnFeedItemClickListener(this);
         feedAdapter.setProjectManager(projectManager); // Enable dynamic project loading
         feedAdapter.setWebViewPool(webViewPool); // Enable WebView pooling for better performance
+        feedAdapter.setOnLoadMoreListener(this::loadNextPage);
+        feedAdapter.setAvatarLoader(AvatarLoader.getInstance(this));
         feedRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         feedRecyclerView.setAdapter(feedAdapter);
         
+        // Warm upcoming downloadable projects based on scroll direction and speed
+        feedPrefetcher = new FeedPrefetcher(this, projectManager, feedAdapter);
+        feedPrefetcher.attach(feedRecyclerView);
+        feedAdapter.setPrefetcher(feedPrefetcher);
+        
+        // Only the most visible tile keeps a running WebView; the rest show a frozen frame
+        liveTileScheduler = new LiveTileScheduler();
+        liveTileScheduler.attach(feedRecyclerView);
+        feedAdapter.setLiveTileScheduler(liveTileScheduler);
+        
+        // Frame durations while the feed is in front
+        frameTracker = new FeedTelemetry.FrameTracker(this);
+        
         // Set up pull-to-refresh
         swipeRefreshLayout.setOnRefreshListener(this::loadFeedContent);
         swipeRefreshLayout.setColorSchemeResources(
@@ -102,17 +133,48 @@ public class HomeActivity extends AppCompatActivity implements FeedAdapter.OnFee
         );
     }
     
+    /**
+     * Mark the first frame that shows feed items, and only then create the rest of the pool.
+     * The RecyclerView's first frames are empty until a page has been committed.
+     */
+    private void onHeadPageCommitted() {
+        if (firstFeedFrameScheduled || feedAdapter.getItemCount() == 0) {
+            return;
+        }
+        firstFeedFrameScheduled = true;
+        feedRecyclerView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                feedRecyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                StartupTrace.mark("first_feed_frame");
+                Log.d(TAG, StartupTrace.summary());
+                webViewPool.warmUpWhenIdle();
+                return true;
+            }
+        });
+    }
+    
+    /**
+     * Load the head page of the feed, replacing whatever was loaded before
+     */
     private void loadFeedContent() {
         Log.d(TAG, "Loading feed content...");
         swipeRefreshLayout.setRefreshing(true);
+        int generation = ++feedGeneration;
+        loadingNextPage = false;
         
-        // Load HTML5 content from Firestore
-        contentService.getContentByType("HTML5", new ContentService.ContentCallback() {
+        // Load the first page of HTML5 content from Firestore
+        contentService.getContentPageByType("HTML5", ContentService.DEFAULT_PAGE_SIZE, null,
+                new ContentService.PageCallback() {
             @Override
-            public void onSuccess(List<ContentItem> items) {
-                Log.d(TAG, "Loaded " + items.size() + " feed items");
+            public void onSuccess(ContentService.ContentPage page) {
+                if (generation != feedGeneration) {
+                    return;
+                }
+                Log.d(TAG, "Loaded " + page.items.size() + " feed items");
                 feedItems.clear();
-                feedItems.addAll(items);
+                feedItems.addAll(page.items);
+                lastPage = page;
                 
                 // Add sample content if none exists
                 if (feedItems.isEmpty()) {
@@ -120,18 +182,22 @@ public class HomeActivity extends AppCompatActivity implements FeedAdapter.OnFee
                 }
                 
                 runOnUiThread(() -> {
-                    feedAdapter.updateItems(feedItems);
+                    feedAdapter.setHeadPage(feedItems, page.hasMore(), HomeActivity.this::onHeadPageCommitted);
                     swipeRefreshLayout.setRefreshing(false);
                 });
             }
 
             @Override
             public void onError(String error) {
+                if (generation != feedGeneration) {
+                    return;
+                }
                 Log.e(TAG, "Error loading feed content: " + error);
                 runOnUiThread(() -> {
                     // Add sample content on error too
                     addSampleContent();
-                    feedAdapter.updateItems(feedItems);
+                    lastPage = null;
+                    feedAdapter.setHeadPage(feedItems, false, HomeActivity.this::onHeadPageCommitted);
                     swipeRefreshLayout.setRefreshing(false);
                     Toast.makeText(HomeActivity.this, "Using sample content", Toast.LENGTH_SHORT).show();
                 });
@@ -139,6 +205,46 @@ public class HomeActivity extends AppCompatActivity implements FeedAdapter.OnFee
         });
     }
     
+    /**
+     * Append the page after the last loaded one; the adapter asks as the user nears the end
+     */
+    private void loadNextPage() {
+        if (loadingNextPage || lastPage == null || !lastPage.hasMore()) {
+            return;
+        }
+        loadingNextPage = true;
+        int generation = feedGeneration;
+        Log.d(TAG, "Loading next feed page...");
+        
+        contentService.getContentPageByType("HTML5", ContentService.DEFAULT_PAGE_SIZE, lastPage,
+                new ContentService.PageCallback() {
+            @Override
+            public void onSuccess(ContentService.ContentPage page) {
+                runOnUiThread(() -> {
+                    if (generation != feedGeneration) {
+                        return;
+                    }
+                    loadingNextPage = false;
+                    lastPage = page;
+                    feedItems.addAll(page.items);
+                    feedAdapter.appendItems(page.items, page.hasMore());
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error loading next feed page: " + error);
+                runOnUiThread(() -> {
+                    if (generation != feedGeneration) {
+                        return;
+                    }
+                    loadingNextPage = false;
+                    feedAdapter.onLoadMoreFailed();
+                });
+            }
+        });
+    }
+    
     private void addSampleContent() {
         Log.d(TAG, "Adding sample HTML5 content");
         feedItems.clear();
@@ -272,13 +378,56 @@ public class HomeActivity extends AppCompatActivity implements FeedAdapter.OnFee
         }
     }
     
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (webViewPool != null) {
+            webViewPool.onHostResumed(null);
+            // A fullscreen claims its WebView before the feed resumes, so anything left is abandoned
+            webViewPool.reclaimUnclaimedHandOffs();
+        }
+        if (liveTileScheduler != null) {
+            // Pick up a WebView returned from fullscreen
+            liveTileScheduler.requestUpdate();
+        }
+        if (frameTracker != null) {
+            frameTracker.start();
+        }
+    }
+    
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Stop feed tiles running scripts, animations and media while the feed is not visible
+        if (webViewPool != null) {
+            webViewPool.onHostPaused(null);
+        }
+        if (frameTracker != null) {
+            frameTracker.stop();
+        }
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // The process may be killed in the background, so save what this session measured so far
+        Context appContext = getApplicationContext();
+        ExtractionEngine.getInstance().runInBackground(() -> FeedTelemetry.export(appContext));
+    }
+    
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (liveTileScheduler != null) {
+            liveTileScheduler.detach();
+        }
         // Clean up adapter
         if (feedAdapter != null) {
             feedAdapter.onDestroy();
         }
+        if (feedPrefetcher != null) {
+            Log.d(TAG, feedPrefetcher.getStats().toString());
+        }
         // Clean up WebView pool - only clear if this is the last activity using it
         if (webViewPool != null && isFinishing()) {
             Log.d(TAG, "Activity finishing, clearing WebView pool");
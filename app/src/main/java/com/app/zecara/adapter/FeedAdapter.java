@@ -1,5 +1,8 @@
 package com.app.zecara.adapter;
 
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -13,30 +16,130 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.app.zecara.R;
 import com.app.zecara.model.ContentItem;
+import com.app.zecara.util.AvatarLoader;
+import com.app.zecara.util.FeedPrefetcher;
+import com.app.zecara.util.FeedTelemetry;
 import com.app.zecara.util.Html5ProjectManager;
+import com.app.zecara.util.HtmlTemplate;
+import com.app.zecara.util.LiveTileScheduler;
+import com.app.zecara.util.ProgressOverlay;
+import com.app.zecara.util.StaticContent;
 import com.app.zecara.util.WebViewPool;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
-public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder> {
+public class FeedAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     
-    private List<ContentItem> feedItems;
+    /**
+     * Items are matched by id; a tile is only rebound when something it shows changed
+     */
+    private static final DiffUtil.ItemCallback<ContentItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<ContentItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ContentItem oldItem, @NonNull ContentItem newItem) {
+            return oldItem.getId() != null && oldItem.getId().equals(newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ContentItem oldItem, @NonNull ContentItem newItem) {
+            return hasSameText(oldItem, newItem)
+                    && hasSameContent(oldItem, newItem)
+                    && hasSameVersion(oldItem, newItem);
+        }
+
+        /**
+         * Describe a change that does not need the WebView reloaded
+         * @return Payload for a partial bind, or null for a full bind
+         */
+        @Override
+        public Object getChangePayload(@NonNull ContentItem oldItem, @NonNull ContentItem newItem) {
+            if (!hasSameContent(oldItem, newItem)) {
+                return null;
+            }
+            return hasSameVersion(oldItem, newItem) ? PAYLOAD_TEXT : PAYLOAD_VERSION;
+        }
+    };
+
+    // Partial bind payloads
+    private static final Object PAYLOAD_TEXT = "text"; // Only text fields changed
+    private static final Object PAYLOAD_VERSION = "version"; // A new project version was published, maybe with text changes
+    
+    // Only interactive content takes a WebView from the pool
+    private static final int VIEW_TYPE_WEB = 0;
+    private static final int VIEW_TYPE_STATIC = 1; // Static inline HTML drawn natively
+    
+    public static final int DEFAULT_PREFETCH_DISTANCE = 3; // Items before the end at which the next page is requested
+
+    private static boolean hasSameText(ContentItem oldItem, ContentItem newItem) {
+        return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                && Objects.equals(oldItem.getAuthorName(), newItem.getAuthorName())
+                && Objects.equals(oldItem.getAuthorAvatar(), newItem.getAuthorAvatar());
+    }
+
+    /**
+     * Whether both items render the same thing in the WebView
+     */
+    private static boolean hasSameContent(ContentItem oldItem, ContentItem newItem) {
+        return Objects.equals(oldItem.getId(), newItem.getId())
+                && Objects.equals(oldItem.getHtmlContent(), newItem.getHtmlContent())
+                && Objects.equals(oldItem.getProjectPath(), newItem.getProjectPath())
+                && Objects.equals(oldItem.getProjectUrl(), newItem.getProjectUrl())
+                && Objects.equals(oldItem.getRenderMode(), newItem.getRenderMode());
+    }
+
+    private static boolean hasSameVersion(ContentItem oldItem, ContentItem newItem) {
+        return Objects.equals(oldItem.getManifestUrl(), newItem.getManifestUrl())
+                && oldItem.getProjectVersion() == newItem.getProjectVersion();
+    }
+
+    // Diffs new lists on a background thread and dispatches only the changed ranges
+    private final AsyncListDiffer<ContentItem> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private OnFeedItemClickListener listener;
     private Html5ProjectManager projectManager;
     private WebViewPool webViewPool;
+    private FeedPrefetcher prefetcher;
+    private LiveTileScheduler liveTileScheduler;
+    private AvatarLoader avatarLoader;
+    private OnLoadMoreListener loadMoreListener;
+    private int prefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+    private boolean loadMoreRequested; // Waiting for the requested page to be appended
+    private boolean endReached;
+    private Map<String, Long> stableIds = new HashMap<>(); // Keys of the current list only
+    private List<ContentItem> stableIdsList; // List the stable ids were assigned for
+    private long[] itemIds = new long[0];
+    private long nextStableId;
+    private int fullBinds;
+    private int partialBinds;
+    private int contentReloads;
 
     public interface OnFeedItemClickListener {
         void onShareClicked(ContentItem item, int position);
         void onMoreClicked(ContentItem item, int position);
         void onContentClicked(ContentItem item, int position);
     }
+    
+    /**
+     * Asked for the next page when binding gets within the prefetch distance of the end.
+     * Called from a bind, so the adapter must only be changed asynchronously.
+     */
+    public interface OnLoadMoreListener {
+        void onLoadMore();
+    }
 
     public FeedAdapter(List<ContentItem> feedItems) {
-        this.feedItems = feedItems;
+        // Lets RecyclerView keep a tile (and its WebView) attached to the same item across updates
+        setHasStableIds(true);
+        differ.submitList(new ArrayList<>(feedItems));
     }
 
     public void setProjectManager(Html5ProjectManager projectManager) {
@@ -47,34 +150,342 @@ public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder
         this.webViewPool = webViewPool;
     }
 
+    public void setPrefetcher(FeedPrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    public void setLiveTileScheduler(LiveTileScheduler liveTileScheduler) {
+        this.liveTileScheduler = liveTileScheduler;
+    }
+
     public void setOnFeedItemClickListener(OnFeedItemClickListener listener) {
         this.listener = listener;
     }
 
+    public void setAvatarLoader(AvatarLoader avatarLoader) {
+        this.avatarLoader = avatarLoader;
+    }
+
+    public void setOnLoadMoreListener(OnLoadMoreListener loadMoreListener) {
+        this.loadMoreListener = loadMoreListener;
+    }
+
+    /**
+     * How many items before the end the next page is requested, so it arrives before the user reaches the end
+     */
+    public void setPrefetchDistance(int prefetchDistance) {
+        this.prefetchDistance = Math.max(0, prefetchDistance);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return StaticContent.isStatic(getItem(position)) ? VIEW_TYPE_STATIC : VIEW_TYPE_WEB;
+    }
+
     @NonNull
     @Override
-    public FeedViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_feed, parent, false);
-        return new FeedViewHolder(view);
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (viewType == VIEW_TYPE_STATIC) {
+            return new StaticCardViewHolder(inflater.inflate(R.layout.item_feed_static, parent, false));
+        }
+        return new FeedViewHolder(inflater.inflate(R.layout.item_feed, parent, false));
     }
 
     @Override
-    public void onBindViewHolder(@NonNull FeedViewHolder holder, int position) {
-        ContentItem item = feedItems.get(position);
-        holder.bind(item, position);
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        ContentItem item = getItem(position);
+        fullBinds++;
+        if (holder instanceof StaticCardViewHolder) {
+            ((StaticCardViewHolder) holder).bind(item);
+        } else {
+            ((FeedViewHolder) holder).bind(item, position);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        maybeLoadMore(position);
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        partialBinds++;
+        if (holder instanceof StaticCardViewHolder) {
+            // Content is unchanged, so this is the same as a text-only bind
+            ((StaticCardViewHolder) holder).bind(getItem(position));
+        } else {
+            ((FeedViewHolder) holder).bindPartial(getItem(position), payloads.contains(PAYLOAD_VERSION));
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        List<ContentItem> items = differ.getCurrentList();
+        if (items != stableIdsList) {
+            assignStableIds(items);
+        }
+        return itemIds[position];
+    }
+
+    /**
+     * Give every item of a newly committed list its stable id. Items keep the id they had
+     * in the previous list, and keys of items no longer shown are dropped.
+     */
+    private void assignStableIds(List<ContentItem> items) {
+        Map<String, Long> ids = new HashMap<>(items.size() * 2);
+        itemIds = new long[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            String key = stableKey(items.get(i));
+            String uniqueKey = key;
+            for (int occurrence = 2; ids.containsKey(uniqueKey); occurrence++) {
+                // Identical items still need distinct ids
+                uniqueKey = key + "#" + occurrence;
+            }
+            Long id = stableIds.get(uniqueKey);
+            if (id == null) {
+                id = nextStableId++;
+            }
+            ids.put(uniqueKey, id);
+            itemIds[i] = id;
+        }
+        stableIds = ids;
+        stableIdsList = items;
+    }
+
+    /**
+     * The item's id, or for an item without one a key derived from what it shows,
+     * so it is recognised again in the next list
+     */
+    private static String stableKey(ContentItem item) {
+        if (item.getId() != null) {
+            return item.getId();
+        }
+        return "@" + Integer.toHexString(Objects.hash(item.getAuthorName(), item.getTitle(),
+                item.getDescription(), item.getHtmlContent(), item.getProjectPath(), item.getProjectUrl()));
     }
 
     @Override
     public int getItemCount() {
-        return feedItems.size();
+        return differ.getCurrentList().size();
+    }
+
+    public ContentItem getItem(int position) {
+        return differ.getCurrentList().get(position);
     }
 
+    private void maybeLoadMore(int position) {
+        if (loadMoreListener != null && !loadMoreRequested && !endReached
+                && position >= getItemCount() - 1 - prefetchDistance) {
+            loadMoreRequested = true;
+            loadMoreListener.onLoadMore();
+        }
+    }
+
+    /**
+     * Add the next page after the current items
+     * @param hasMore False if this was the last page
+     */
+    public void appendItems(List<ContentItem> page, boolean hasMore) {
+        List<ContentItem> items = new ArrayList<>(differ.getCurrentList().size() + page.size());
+        items.addAll(differ.getCurrentList());
+        items.addAll(page);
+        endReached = !hasMore;
+        // Ask again only once the page is in the list, so binds in between do not re-request it
+        differ.submitList(items, () -> loadMoreRequested = false);
+    }
+
+    /**
+     * The requested page failed to load; the next bind near the end asks again
+     */
+    public void onLoadMoreFailed() {
+        loadMoreRequested = false;
+    }
+
+    /**
+     * Replace the items with a freshly loaded head page
+     * @param hasMore False if the head page is the whole feed
+     * @param onCommitted Runs once the page is the adapter's list, may be null
+     */
+    public void setHeadPage(List<ContentItem> page, boolean hasMore, Runnable onCommitted) {
+        endReached = !hasMore;
+        differ.submitList(new ArrayList<>(page), () -> {
+            loadMoreRequested = false;
+            if (onCommitted != null) {
+                onCommitted.run();
+            }
+        });
+    }
+
+    /**
+     * Show a new list of items. Unchanged tiles keep their WebView; only inserted,
+     * removed, moved or changed items are rebound.
+     */
     public void updateItems(List<ContentItem> newItems) {
-        this.feedItems = newItems;
-        notifyDataSetChanged();
+        // Copy so later changes to the caller's list cannot race with the background diff
+        differ.submitList(new ArrayList<>(newItems));
     }
 
-    class FeedViewHolder extends RecyclerView.ViewHolder {
+    /**
+     * Card for static inline HTML, drawn without a live WebView: plain markup as styled
+     * text, styled markup as a snapshot rendered once by a pooled WebView.
+     * Tapping it still opens the fullscreen viewer, which renders the original HTML.
+     */
+    class StaticCardViewHolder extends RecyclerView.ViewHolder {
+        private final TextView authorName;
+        private final TextView postDescription;
+        private final TextView staticContent;
+        private final ImageView staticSnapshot;
+        private final FrameLayout staticContentContainer;
+        private final ImageView authorAvatar;
+        private final ImageView shareButton;
+        private final ImageView moreOptions;
+        private ContentItem boundItem;
+        private String renderedHtml;
+        private String snapshotKey; // Content key of the snapshot shown or being rendered
+        private WebViewPool.AcquireTicket snapshotTicket;
+        private WebView snapshotWebView; // Renders the snapshot, returned to the pool once captured
+        private long visualStateRequestId;
+
+        StaticCardViewHolder(@NonNull View itemView) {
+            super(itemView);
+            authorName = itemView.findViewById(R.id.authorName);
+            postDescription = itemView.findViewById(R.id.postDescription);
+            staticContent = itemView.findViewById(R.id.staticContent);
+            staticSnapshot = itemView.findViewById(R.id.staticSnapshot);
+            staticContentContainer = itemView.findViewById(R.id.staticContentContainer);
+            authorAvatar = itemView.findViewById(R.id.authorAvatar);
+            shareButton = itemView.findViewById(R.id.shareButton);
+            moreOptions = itemView.findViewById(R.id.moreOptions);
+        }
+
+        void bind(ContentItem item) {
+            boundItem = item;
+            authorName.setText(item.getAuthorName() != null ? item.getAuthorName() : "Anonymous");
+            postDescription.setText(item.getDescription() != null ? item.getDescription() : "");
+            if (avatarLoader != null) {
+                avatarLoader.load(item.getAuthorAvatar(), authorAvatar);
+            }
+            if (StaticContent.needsSnapshot(item) && webViewPool != null) {
+                bindSnapshot(item);
+            } else if (!Objects.equals(renderedHtml, item.getHtmlContent()) || snapshotKey != null) {
+                clearSnapshot();
+                renderedHtml = item.getHtmlContent();
+                staticContent.setText(StaticContent.render(renderedHtml));
+            }
+
+            if (listener != null) {
+                shareButton.setOnClickListener(v -> listener.onShareClicked(boundItem, getAdapterPosition()));
+                moreOptions.setOnClickListener(v -> listener.onMoreClicked(boundItem, getAdapterPosition()));
+                View.OnClickListener open = v -> listener.onContentClicked(boundItem, getAdapterPosition());
+                itemView.setOnClickListener(open);
+                staticContentContainer.setOnClickListener(open);
+            }
+        }
+
+        /**
+         * Show the item's cached snapshot, or render it if there is none at this width
+         */
+        private void bindSnapshot(ContentItem item) {
+            String key = WebViewPool.contentKey(item);
+            if (key != null && key.equals(snapshotKey)) {
+                return; // Already shown or rendering
+            }
+            clearSnapshot();
+            renderedHtml = null;
+            snapshotKey = key;
+            staticContent.setVisibility(View.GONE);
+            Bitmap cached = StaticContent.getSnapshot(key, getSnapshotWidth());
+            if (cached != null) {
+                showSnapshot(cached);
+                return;
+            }
+            staticSnapshot.setVisibility(View.INVISIBLE); // Holds the card's height while rendering
+            snapshotTicket = webViewPool.acquireWebView(key, (webView, contentRetained) -> {
+                snapshotTicket = null;
+                snapshotWebView = webView;
+                FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(
+                        FrameLayout.LayoutParams.MATCH_PARENT, staticSnapshot.getLayoutParams().height);
+                staticContentContainer.addView(webView, layoutParams);
+                webViewPool.setPageListener(webView, (view, url) -> captureSnapshot(view, key));
+                if (contentRetained && webView.getProgress() == 100) {
+                    captureSnapshot(webView, key);
+                } else if (!contentRetained) {
+                    HtmlTemplate.Document document = HtmlTemplate.render(
+                            item.getId(), item.getHtmlContent(), HtmlTemplate.Variant.FEED);
+                    webView.loadDataWithBaseURL(document.baseUrl, document.html, "text/html", "UTF-8", null);
+                }
+            });
+        }
+
+        /**
+         * Once the loaded page has been drawn, keep a bitmap of it and give the WebView back
+         */
+        private void captureSnapshot(WebView webView, String key) {
+            webViewPool.setContentKey(webView, key);
+            long requestId = ++visualStateRequestId;
+            webView.postVisualStateCallback(requestId, new WebView.VisualStateCallback() {
+                @Override
+                public void onComplete(long completedId) {
+                    if (completedId != visualStateRequestId || webView != snapshotWebView) {
+                        return;
+                    }
+                    int width = webView.getWidth();
+                    int height = webView.getHeight();
+                    if (width == 0 || height == 0) {
+                        return; // Not laid out; the live WebView keeps showing the content
+                    }
+                    Bitmap snapshot = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+                    webView.draw(new Canvas(snapshot));
+                    StaticContent.putSnapshot(key, getSnapshotWidth(), snapshot);
+                    releaseSnapshotWebView();
+                    showSnapshot(snapshot);
+                }
+            });
+        }
+
+        private void showSnapshot(Bitmap snapshot) {
+            staticSnapshot.setImageBitmap(snapshot);
+            staticSnapshot.setVisibility(View.VISIBLE);
+        }
+
+        private int getSnapshotWidth() {
+            // Cards span the screen, so this identifies the snapshot's size before layout
+            return itemView.getResources().getDisplayMetrics().widthPixels;
+        }
+
+        private void releaseSnapshotWebView() {
+            if (snapshotTicket != null) {
+                snapshotTicket.cancel();
+                snapshotTicket = null;
+            }
+            if (snapshotWebView != null) {
+                staticContentContainer.removeView(snapshotWebView);
+                webViewPool.releaseWebView(snapshotWebView);
+                snapshotWebView = null;
+            }
+        }
+
+        private void clearSnapshot() {
+            releaseSnapshotWebView();
+            snapshotKey = null;
+            staticSnapshot.setImageDrawable(null);
+            staticSnapshot.setVisibility(View.GONE);
+            staticContent.setVisibility(View.VISIBLE);
+        }
+
+        /**
+         * Give back a WebView still rendering when the card is recycled;
+         * the next bind renders again unless the snapshot was cached
+         */
+        void cleanup() {
+            if (snapshotWebView != null || snapshotTicket != null) {
+                clearSnapshot();
+            }
+        }
+    }
+
+    class FeedViewHolder extends RecyclerView.ViewHolder implements LiveTileScheduler.LiveTile {
         private TextView authorName;
         private WebView contentWebView;
         private ImageView shareButton;
@@ -83,6 +494,17 @@ public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder
         private ImageView authorAvatar;
         private FrameLayout contentContainer;
         private TextView fullScreenHint;
+        private ProgressOverlay progressOverlay;
+        private String pendingProjectId;
+        private String retainedProjectId; // Project this tile's WebView loads, kept out of eviction
+        private Html5ProjectManager.ProjectDownloadCallback pendingDownloadCallback;
+        private WebViewPool.AcquireTicket acquireTicket;
+        private ImageView frozenFrame;
+        private ContentItem boundItem;
+        private String contentKey; // Pool content key of what the current WebView shows or loads
+        private boolean contentDrawn; // The live WebView has drawn its loaded page
+        private long visualStateRequestId;
+        private long loadStartTime; // When the WebView started loading content, 0 once it has loaded
 
         public FeedViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -92,6 +514,8 @@ public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder
             moreOptions = itemView.findViewById(R.id.moreOptions);
             authorAvatar = itemView.findViewById(R.id.authorAvatar);
             fullScreenHint = itemView.findViewById(R.id.fullScreenHint);
+            progressOverlay = new ProgressOverlay(itemView.findViewById(R.id.loadingOverlay));
+            frozenFrame = itemView.findViewById(R.id.frozenFrame);
             
             // Get the FrameLayout container for pooled WebViews
             contentContainer = itemView.findViewById(R.id.contentWebView).getParent() instanceof FrameLayout ?
@@ -105,43 +529,78 @@ public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder
         }
 
         /**
-         * Acquire a WebView from the pool and attach it to the container
+         * Acquire a WebView from the pool and attach it to the container.
+         * If the pool is exhausted a placeholder is shown and the content loads
+         * once a WebView is handed over; the UI thread is never blocked.
          */
-        private void acquireWebView() {
+        private void acquireWebView(ContentItem item) {
             if (webViewPool != null && contentContainer != null) {
                 // Release any existing WebView first
                 releaseWebView();
                 
-                // Get a fresh WebView from the pool
-                contentWebView = webViewPool.acquireWebView();
-                
-                if (contentWebView != null) {
-                    try {
-                        // Ensure WebView is not attached to any parent
-                        if (contentWebView.getParent() != null) {
-                            ((android.view.ViewGroup) contentWebView.getParent()).removeView(contentWebView);
+                if (!isFrozen()) {
+                    // A frozen frame already stands in for the content while waiting
+                    progressOverlay.showMessage("Loading...");
+                }
+                contentKey = WebViewPool.contentKey(item);
+                acquireTicket = webViewPool.acquireWebView(contentKey, (webView, contentRetained) -> {
+                    acquireTicket = null;
+                    if (!attachWebView(webView)) {
+                        showError("WebView not available");
+                    } else if (contentRetained) {
+                        // Same WebView as last time for this item, document still intact
+                        Log.d("FeedAdapter", "Reusing retained WebView for: " + item.getTitle());
+                        progressOverlay.hide();
+                        if (projectManager != null) {
+                            projectManager.touchProject(item.getId());
                         }
-                        
-                        // Set proper layout parameters for the container
-                        FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(
-                                FrameLayout.LayoutParams.MATCH_PARENT,
-                                FrameLayout.LayoutParams.MATCH_PARENT
-                        );
-                        contentWebView.setLayoutParams(layoutParams);
-                        
-                        // Add to container
-                        contentContainer.addView(contentWebView, 0); // Add below the hint overlay
-                        
-                        Log.d("FeedAdapter", "WebView acquired and attached to ViewHolder");
-                    } catch (Exception e) {
-                        Log.e("FeedAdapter", "Error attaching WebView: " + e.getMessage());
-                        // Release the WebView back to pool if attachment failed
-                        if (webViewPool != null && contentWebView != null) {
-                            webViewPool.releaseWebView(contentWebView);
-                            contentWebView = null;
+                        if (webView.getProgress() == 100) {
+                            onPageFinished(webView);
                         }
+                    } else {
+                        progressOverlay.hide();
+                        loadContent(item);
                     }
+                });
+            } else {
+                Log.e("FeedAdapter", "Failed to acquire WebView for item: " + item.getTitle());
+                showError("WebView not available");
+            }
+        }
+        
+        /**
+         * Attach a WebView handed over by the pool to this holder's container
+         * @return false if attaching failed and the WebView was returned to the pool
+         */
+        private boolean attachWebView(WebView webView) {
+            contentWebView = webView;
+            try {
+                // Ensure WebView is not attached to any parent
+                if (contentWebView.getParent() != null) {
+                    ((android.view.ViewGroup) contentWebView.getParent()).removeView(contentWebView);
                 }
+                
+                // Set proper layout parameters for the container
+                FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(
+                        FrameLayout.LayoutParams.MATCH_PARENT,
+                        FrameLayout.LayoutParams.MATCH_PARENT
+                );
+                contentWebView.setLayoutParams(layoutParams);
+                
+                // Add to container
+                contentContainer.addView(contentWebView, 0); // Add below the hint overlay
+                
+                contentDrawn = false;
+                webViewPool.setPageListener(contentWebView, (view, url) -> onPageFinished(view));
+                
+                Log.d("FeedAdapter", "WebView acquired and attached to ViewHolder");
+                return true;
+            } catch (Exception e) {
+                Log.e("FeedAdapter", "Error attaching WebView: " + e.getMessage());
+                // Release the WebView back to pool if attachment failed
+                webViewPool.releaseWebView(contentWebView);
+                contentWebView = null;
+                return false;
             }
         }
         
@@ -149,7 +608,19 @@ public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder
          * Release the current WebView back to the pool
          */
         private void releaseWebView() {
+            detachPendingDownload();
+            releaseRetainedProject();
+            loadStartTime = 0;
+            if (acquireTicket != null) {
+                // Still waiting for a WebView; let it go to the next request instead
+                acquireTicket.cancel();
+                acquireTicket = null;
+            }
             if (contentWebView != null && webViewPool != null) {
+                if (!contentDrawn) {
+                    // Do not let an abandoned page keep loading in the pool
+                    contentWebView.stopLoading();
+                }
                 try {
                     // Remove from container safely
                     if (contentContainer != null && contentWebView.getParent() == contentContainer) {
@@ -173,57 +644,222 @@ public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder
         }
 
         public void bind(ContentItem item, int position) {
-            // Acquire a WebView from the pool for this item
-            acquireWebView();
+            // A rebind of the same content keeps the live WebView or frozen frame
+            boolean showingContent = contentWebView != null || acquireTicket != null || isFrozen();
+            boolean reload = boundItem == null || !hasSameContent(boundItem, item) || !showingContent;
+            boundItem = item;
             
-            // Set author info
-            authorName.setText(item.getAuthorName() != null ? item.getAuthorName() : "Anonymous");
-
-            // Only load content if we successfully acquired a WebView
-            if (contentWebView != null) {
-                // Load HTML5 content - prioritize downloadable projects
-                if (item.getProjectUrl() != null && !item.getProjectUrl().isEmpty()) {
-                    loadDownloadableProject(item);
-                } else if (item.getProjectPath() != null && !item.getProjectPath().isEmpty()) {
-                    // Load multi-page HTML5 project from assets
-                    String projectUrl = "file:///android_asset/html5_projects/" + item.getProjectPath() + "/index.html";
-                    contentWebView.loadUrl(projectUrl);
-                } else if (item.getHtmlContent() != null && !item.getHtmlContent().isEmpty()) {
-                    // Load inline HTML content (legacy support)
-                    String htmlContent = wrapHtmlContent(item.getHtmlContent());
-                    contentWebView.loadDataWithBaseURL(null, htmlContent, "text/html", "UTF-8", null);
+            if (reload) {
+                contentReloads++;
+                releaseWebView();
+                clearFrozenFrame();
+                progressOverlay.hide();
+                if (liveTileScheduler != null) {
+                    // Content loads once the tile settles on screen, not for every tile a fling passes
+                    liveTileScheduler.requestUpdate();
                 } else {
-                    contentWebView.loadData("<html><body><p>No content available</p></body></html>", "text/html", "UTF-8");
+                    // Acquire a WebView from the pool for this item; content loads once it is ready
+                    acquireWebView(item);
                 }
-            } else {
-                Log.e("FeedAdapter", "Failed to acquire WebView for item: " + item.getTitle());
-                showError("WebView not available");
+            }
+            
+            bindText(item);
+            bindClickListeners();
+        }
+
+        /**
+         * Apply a change that does not affect the rendered content
+         * @param versionChanged A new project version was published; fetch it in the background
+         */
+        public void bindPartial(ContentItem item, boolean versionChanged) {
+            boundItem = item;
+            bindText(item);
+            if (versionChanged && projectManager != null
+                    && item.getProjectUrl() != null && !item.getProjectUrl().isEmpty()
+                    && projectManager.isProjectInstalled(item.getId())) {
+                refreshProjectIfOutdated(item);
+            }
+        }
+
+        private void bindText(ContentItem item) {
+            // Set author info
+            authorName.setText(item.getAuthorName() != null ? item.getAuthorName() : "Anonymous");
+            if (avatarLoader != null) {
+                // Decoded off the main thread; a cached avatar shows immediately
+                avatarLoader.load(item.getAuthorAvatar(), authorAvatar);
             }
 
             // Set description
             postDescription.setText(item.getDescription() != null ? item.getDescription() : "");
+        }
 
-            // Set click listeners
+        private void bindClickListeners() {
+            // Set click listeners; item and position are read on click since partial binds and moves do not rebind
             if (listener != null) {
-                shareButton.setOnClickListener(v -> listener.onShareClicked(item, position));
-                moreOptions.setOnClickListener(v -> listener.onMoreClicked(item, position));
+                shareButton.setOnClickListener(v -> listener.onShareClicked(boundItem, getAdapterPosition()));
+                moreOptions.setOnClickListener(v -> listener.onMoreClicked(boundItem, getAdapterPosition()));
                 
                 // Make multiple areas clickable for better UX
                 itemView.setOnClickListener(v -> {
-                    Log.d("FeedAdapter", "Feed item clicked: " + item.getTitle());
-                    listener.onContentClicked(item, position);
+                    Log.d("FeedAdapter", "Feed item clicked: " + boundItem.getTitle());
+                    openFullScreen();
                 });
                 contentContainer.setOnClickListener(v -> {
-                    Log.d("FeedAdapter", "Content container clicked: " + item.getTitle());
-                    listener.onContentClicked(item, position);
+                    Log.d("FeedAdapter", "Content container clicked: " + boundItem.getTitle());
+                    openFullScreen();
                 });
                 fullScreenHint.setOnClickListener(v -> {
-                    Log.d("FeedAdapter", "Full screen hint clicked: " + item.getTitle());
-                    listener.onContentClicked(item, position);
+                    Log.d("FeedAdapter", "Full screen hint clicked: " + boundItem.getTitle());
+                    openFullScreen();
                 });
             }
         }
 
+        private void openFullScreen() {
+            handOffWebView(boundItem);
+            listener.onContentClicked(boundItem, getAdapterPosition());
+        }
+
+        /**
+         * Wait until the finished page is actually drawn, then drop the frozen frame
+         * and let the scheduler freeze this tile if it is not the focused one
+         */
+        private void onPageFinished(WebView webView) {
+            if (loadStartTime != 0) {
+                FeedTelemetry.record(FeedTelemetry.Metric.TILE_LOAD_MS, SystemClock.uptimeMillis() - loadStartTime);
+                loadStartTime = 0;
+            }
+            if (contentKey != null) {
+                // Let the pool hand this document back if the same content is bound again
+                webViewPool.setContentKey(webView, contentKey);
+            }
+            long requestId = ++visualStateRequestId;
+            webView.postVisualStateCallback(requestId, new WebView.VisualStateCallback() {
+                @Override
+                public void onComplete(long completedId) {
+                    if (completedId != visualStateRequestId || webView != contentWebView) {
+                        return;
+                    }
+                    contentDrawn = true;
+                    clearFrozenFrame();
+                    if (liveTileScheduler != null) {
+                        liveTileScheduler.requestUpdate();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void goLive() {
+            if (contentWebView != null || acquireTicket != null || boundItem == null) {
+                return; // Already live or about to be
+            }
+            if (webViewPool != null && webViewPool.isHandedOff(WebViewPool.contentKey(boundItem))) {
+                return; // Showing in fullscreen; the WebView comes back through the pool
+            }
+            Log.d("FeedAdapter", "Tile going live: " + boundItem.getTitle());
+            acquireWebView(boundItem);
+        }
+
+        @Override
+        public boolean freeze() {
+            if (contentWebView == null) {
+                if (isFrozen() || boundItem == null
+                        || (webViewPool != null && webViewPool.isHandedOff(WebViewPool.contentKey(boundItem)))) {
+                    return true;
+                }
+                // Nothing to show yet; render once so there is a frame to capture
+                if (acquireTicket == null) {
+                    acquireWebView(boundItem);
+                }
+                return false;
+            }
+            if (progressOverlay.isShowing() && pendingDownloadCallback == null && acquireTicket == null) {
+                return true; // Showing an error, nothing worth capturing
+            }
+            if (!captureFrame()) {
+                return false;
+            }
+            releaseWebView();
+            Log.d("FeedAdapter", "Tile frozen: " + boundItem.getTitle());
+            return true;
+        }
+
+        @Override
+        public void cancelLoad() {
+            boolean loading = acquireTicket != null || pendingDownloadCallback != null
+                    || (contentWebView != null && !contentDrawn);
+            if (loading) {
+                Log.d("FeedAdapter", "Cancelling load for tile that left the screen: " + boundItem.getTitle());
+                releaseWebView();
+                progressOverlay.hide();
+            }
+        }
+
+        /**
+         * Show the WebView's current frame in place of the WebView
+         * @return false if the content has not been drawn yet
+         */
+        private boolean captureFrame() {
+            int width = contentWebView.getWidth();
+            int height = contentWebView.getHeight();
+            if (!contentDrawn || pendingDownloadCallback != null || width == 0 || height == 0) {
+                return false;
+            }
+            Bitmap frame = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+            contentWebView.draw(new Canvas(frame));
+            frozenFrame.setImageBitmap(frame);
+            frozenFrame.setVisibility(View.VISIBLE);
+            return true;
+        }
+
+        /**
+         * Lend the rendered WebView to the fullscreen screen so it opens without reloading.
+         * The tile keeps showing the last frame until the WebView comes back.
+         */
+        private void handOffWebView(ContentItem item) {
+            if (contentWebView == null || webViewPool == null || contentKey == null
+                    || !contentKey.equals(WebViewPool.contentKey(item)) || !captureFrame()) {
+                return; // Fullscreen loads the content itself
+            }
+            if (!webViewPool.beginHandOff(contentKey, contentWebView)) {
+                return; // Another fullscreen still shows this content; the new one loads it itself
+            }
+            contentWebView = null;
+            Log.d("FeedAdapter", "WebView handed off to fullscreen: " + item.getTitle());
+        }
+
+        private boolean isFrozen() {
+            return frozenFrame.getVisibility() == View.VISIBLE;
+        }
+
+        private void clearFrozenFrame() {
+            frozenFrame.setVisibility(View.GONE);
+            frozenFrame.setImageDrawable(null);
+        }
+
+        /**
+         * Load the item's HTML5 content into the attached WebView
+         */
+        private void loadContent(ContentItem item) {
+            loadStartTime = SystemClock.uptimeMillis();
+            // Load HTML5 content - prioritize downloadable projects
+            if (item.getProjectUrl() != null && !item.getProjectUrl().isEmpty()) {
+                loadDownloadableProject(item);
+            } else if (item.getProjectPath() != null && !item.getProjectPath().isEmpty()) {
+                // Load multi-page HTML5 project from assets
+                String projectUrl = "file:///android_asset/html5_projects/" + item.getProjectPath() + "/index.html";
+                contentWebView.loadUrl(projectUrl);
+            } else if (item.getHtmlContent() != null && !item.getHtmlContent().isEmpty()) {
+                // Load inline HTML content (legacy support)
+                HtmlTemplate.Document document = HtmlTemplate.render(
+                        item.getId(), item.getHtmlContent(), HtmlTemplate.Variant.FEED);
+                contentWebView.loadDataWithBaseURL(document.baseUrl, document.html, "text/html", "UTF-8", null);
+            } else {
+                contentWebView.loadData("<html><body><p>No content available</p></body></html>", "text/html", "UTF-8");
+            }
+        }
+
         private void loadDownloadableProject(ContentItem item) {
             if (projectManager == null) {
                 // Fallback to inline content or error
@@ -236,95 +872,110 @@ public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder
                 return;
             }
 
+            if (prefetcher != null) {
+                prefetcher.recordBind(item);
+            }
+            releaseRetainedProject();
+            retainedProjectId = item.getId();
+            Html5ProjectManager.retainProject(retainedProjectId);
+
             // Check if project is already downloaded
             String localPath = projectManager.getLocalProjectPath(item.getId());
             if (localPath != null) {
                 // Load from local cache
                 contentWebView.loadUrl(localPath);
+                refreshProjectIfOutdated(item);
                 return;
             }
 
             // Show loading state
             showLoadingState("Downloading project...");
 
-            // Download project from Firebase Storage
-            projectManager.downloadProject(
-                item.getProjectUrl(), 
-                item.getId(), 
-                new Html5ProjectManager.ProjectDownloadCallback() {
-                    @Override
-                    public void onSuccess(String localProjectPath) {
-                        // Load the downloaded project
-                        String indexUrl = "file://" + localProjectPath + "/index.html";
-                        if (contentWebView != null) {
-                            contentWebView.post(() -> {
-                                if (contentWebView != null) {
-                                    contentWebView.loadUrl(indexUrl);
-                                }
-                            });
-                        }
+            // Download project from Firebase Storage, joining any download already running for it
+            pendingProjectId = item.getId();
+            pendingDownloadCallback = new Html5ProjectManager.ProjectDownloadCallback() {
+                @Override
+                public void onSuccess(String localProjectPath) {
+                    pendingDownloadCallback = null;
+                    // Load the downloaded project (extracted directory or served archive)
+                    String indexUrl = projectManager.getLocalProjectPath(item.getId());
+                    if (contentWebView != null && indexUrl != null) {
+                        // Navigate once, straight to the real content
+                        progressOverlay.hide();
+                        loadStartTime = SystemClock.uptimeMillis(); // The download is timed separately
+                        contentWebView.loadUrl(indexUrl);
                     }
+                }
+
+                @Override
+                public void onProgress(int percentage) {
+                    progressOverlay.showProgress(percentage);
+                }
+
+                @Override
+                public void onError(String error) {
+                    pendingDownloadCallback = null;
+                    showError("Download failed: " + error);
+                }
+            };
+            projectManager.downloadProject(item.getProjectUrl(), item.getId(), item.getProjectVersion(),
+                    pendingDownloadCallback);
+        }
 
-                    @Override
-                    public void onProgress(int percentage) {
-                        if (contentWebView != null) {
-                            contentWebView.post(() -> 
-                                showLoadingState("Downloading... " + percentage + "%")
-                            );
+        /**
+         * Fetch only the changed files of a re-published project in the background.
+         * The tile keeps showing the installed version; the next bind picks up the update.
+         */
+        private void refreshProjectIfOutdated(ContentItem item) {
+            if (item.getManifestUrl() == null || item.getManifestUrl().isEmpty()
+                    || !projectManager.needsUpdate(item.getId(), item.getProjectVersion())
+                    || projectManager.isDownloading(item.getId())) {
+                return;
+            }
+            projectManager.updateProject(item.getManifestUrl(), item.getId(),
+                    new Html5ProjectManager.ProjectDownloadCallback() {
+                        @Override
+                        public void onSuccess(String localProjectPath) {
+                            Log.d("FeedAdapter", "Project updated in background: " + item.getId());
                         }
-                    }
 
-                    @Override
-                    public void onError(String error) {
-                        if (contentWebView != null) {
-                            contentWebView.post(() -> showError("Download failed: " + error));
+                        @Override
+                        public void onProgress(int percentage) {
                         }
-                    }
-                }
-            );
+
+                        @Override
+                        public void onError(String error) {
+                            Log.w("FeedAdapter", "Background update failed for " + item.getId() + ": " + error);
+                        }
+                    });
         }
 
-        private void showLoadingState(String message) {
-            if (contentWebView != null) {
-                String loadingHtml = "<html><body style='text-align: center; padding: 50px;'>" +
-                    "<div style='color: #666;'>" +
-                    "<div style='font-size: 18px; margin-bottom: 10px;'>📦</div>" +
-                    "<div>" + message + "</div>" +
-                    "</div></body></html>";
-                contentWebView.loadDataWithBaseURL(null, loadingHtml, "text/html", "UTF-8", null);
+        /**
+         * Stop this holder receiving events for a download started for a previous item.
+         * The download keeps running for any other screen waiting on it.
+         */
+        private void detachPendingDownload() {
+            if (pendingDownloadCallback != null && projectManager != null) {
+                projectManager.detachCallback(pendingProjectId, pendingDownloadCallback);
             }
+            pendingDownloadCallback = null;
+            pendingProjectId = null;
+        }
+
+        private void releaseRetainedProject() {
+            if (retainedProjectId != null) {
+                Html5ProjectManager.releaseProject(retainedProjectId);
+                retainedProjectId = null;
+            }
+        }
+
+        private void showLoadingState(String message) {
+            progressOverlay.showMessage(message);
         }
 
         private void showError(String error) {
-            if (contentWebView != null) {
-                String errorHtml = "<html><body style='text-align: center; padding: 50px;'>" +
-                    "<div style='color: #f44336;'>" +
-                    "<div style='font-size: 18px; margin-bottom: 10px;'>⚠️</div>" +
-                    "<div>Error: " + error + "</div>" +
-                    "</div></body></html>";
-                contentWebView.loadDataWithBaseURL(null, errorHtml, "text/html", "UTF-8", null);
-            } else {
-                Log.e("FeedAdapter", "Error (WebView null): " + error);
-            }
-        }
-
-        private String wrapHtmlContent(String htmlContent) {
-            return "<html>" +
-                   "<head>" +
-                   "<meta name='viewport' content='width=device-width, initial-scale=1.0'>" +
-                   "<style>" +
-                   "body { margin: 0; padding: 8px; font-family: Arial, sans-serif; background-color: #f5f5f5; }" +
-                   "img { max-width: 100%; height: auto; border-radius: 8px; }" +
-                   "video { max-width: 100%; height: auto; border-radius: 8px; }" +
-                   "h1, h2, h3 { margin-top: 0; color: #333; }" +
-                   "p { line-height: 1.4; color: #666; }" +
-                   ".card { background: white; border-radius: 8px; padding: 16px; box-shadow: 0 2px 4px rgba(0,0,0,0.1); }" +
-                   "</style>" +
-                   "</head>" +
-                   "<body>" +
-                   "<div class='card'>" + htmlContent + "</div>" +
-                   "</body>" +
-                   "</html>";
+            Log.e("FeedAdapter", "Tile error: " + error);
+            progressOverlay.showError(error);
         }
         
         /**
@@ -332,28 +983,66 @@ public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder
          */
         public void cleanup() {
             releaseWebView();
+            clearFrozenFrame();
         }
     }
     
     @Override
-    public void onViewRecycled(@NonNull FeedViewHolder holder) {
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
         super.onViewRecycled(holder);
-        // Release WebView back to pool when ViewHolder is recycled
-        holder.cleanup();
-        Log.d("FeedAdapter", "ViewHolder recycled, WebView returned to pool");
+        if (avatarLoader != null) {
+            // A recycled row must not receive the avatar of the item it used to show
+            avatarLoader.cancel(holder.itemView.findViewById(R.id.authorAvatar));
+        }
+        if (holder instanceof FeedViewHolder) {
+            // Release WebView back to pool when ViewHolder is recycled
+            ((FeedViewHolder) holder).cleanup();
+            Log.d("FeedAdapter", "ViewHolder recycled, WebView returned to pool");
+        } else if (holder instanceof StaticCardViewHolder) {
+            ((StaticCardViewHolder) holder).cleanup();
+        }
     }
     
     @Override
-    public void onViewDetachedFromWindow(@NonNull FeedViewHolder holder) {
+    public void onViewDetachedFromWindow(@NonNull RecyclerView.ViewHolder holder) {
         super.onViewDetachedFromWindow(holder);
-        // Release WebView when ViewHolder goes off-screen
-        holder.cleanup();
+        if (holder instanceof FeedViewHolder) {
+            // Release WebView when ViewHolder goes off-screen
+            ((FeedViewHolder) holder).cleanup();
+        }
+    }
+    
+    public BindStats getBindStats() {
+        return new BindStats(fullBinds, partialBinds, contentReloads);
+    }
+    
+    /**
+     * How many binds reloaded a tile versus only updated its text
+     */
+    public static class BindStats {
+        public final int fullBinds;
+        public final int partialBinds;
+        public final int contentReloads; // Full binds whose tile had to (re)load its content
+        
+        BindStats(int fullBinds, int partialBinds, int contentReloads) {
+            this.fullBinds = fullBinds;
+            this.partialBinds = partialBinds;
+            this.contentReloads = contentReloads;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Feed binds: %d full, %d partial, %d content reloads",
+                    fullBinds, partialBinds, contentReloads);
+        }
     }
     
     /**
      * Call this method when the adapter is being destroyed
      */
     public void onDestroy() {
+        Log.d("FeedAdapter", getBindStats().toString());
+        Log.d("FeedAdapter", FeedTelemetry.summary());
         if (webViewPool != null) {
             Log.d("FeedAdapter", "Adapter destroyed, WebView pool stats: " + webViewPool.getStats());
             // Note: Pool cleanup should be handled by the Activity/Fragment
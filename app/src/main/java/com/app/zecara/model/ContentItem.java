@@ -9,10 +9,13 @@ public class ContentItem implements Serializable {
     private String htmlContent; // HTML5 content to display in WebView
     private String projectPath; // Path to HTML5 project folder (for multi-page apps)
     private String projectUrl;  // Firebase Storage URL for downloadable HTML5 projects
+    private String manifestUrl; // Firebase Storage URL of the per-file hash manifest, for delta updates
+    private long projectVersion; // Published version of the downloadable project
     private String contentType; // "HTML5"
     private String category;
     private String authorName;
     private String authorAvatar;
+    private String renderMode;  // "static" or "interactive"; null to detect from the HTML
 
     // Default constructor (required for Firestore)
     public ContentItem() {
@@ -57,4 +60,13 @@ public class ContentItem implements Serializable {
 
     public String getProjectUrl() { return projectUrl; }
     public void setProjectUrl(String projectUrl) { this.projectUrl = projectUrl; }
+
+    public String getManifestUrl() { return manifestUrl; }
+    public void setManifestUrl(String manifestUrl) { this.manifestUrl = manifestUrl; }
+
+    public long getProjectVersion() { return projectVersion; }
+    public void setProjectVersion(long projectVersion) { this.projectVersion = projectVersion; }
+
+    public String getRenderMode() { return renderMode; }
+    public void setRenderMode(String renderMode) { this.renderMode = renderMode; }
 }
\ No newline at end of file
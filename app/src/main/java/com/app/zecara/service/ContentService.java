@@ -5,7 +5,9 @@ import android.util.Log;
 import com.app.zecara.model.ContentItem;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.storage.FirebaseStorage;
@@ -17,6 +19,7 @@ import java.util.List;
 public class ContentService {
     private static final String TAG = "ContentService";
     private static final String CONTENT_COLLECTION = "content";
+    public static final int DEFAULT_PAGE_SIZE = 10;
     
     private FirebaseFirestore db;
     private FirebaseStorage storage;
@@ -31,6 +34,33 @@ public class ContentService {
         void onError(String error);
     }
 
+    public interface PageCallback {
+        void onSuccess(ContentPage page);
+        void onError(String error);
+    }
+
+    /**
+     * One page of a feed query. Pass it back to load the page after it.
+     */
+    public static class ContentPage {
+        public final List<ContentItem> items;
+        private final DocumentSnapshot lastDocument; // Cursor the next page starts after
+        private final boolean hasMore;
+
+        ContentPage(List<ContentItem> items, DocumentSnapshot lastDocument, boolean hasMore) {
+            this.items = items;
+            this.lastDocument = lastDocument;
+            this.hasMore = hasMore;
+        }
+
+        /**
+         * False once a page came back short, i.e. the end of the collection was reached
+         */
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+
     public interface DownloadUrlCallback {
         void onSuccess(String downloadUrl);
         void onError(String error);
@@ -59,6 +89,50 @@ public class ContentService {
                 });
     }
 
+    /**
+     * Get one page of content items of a type, in upload order
+     * @param after Page to continue from, or null for the first page
+     */
+    public void getContentPageByType(String contentType, int pageSize, ContentPage after, PageCallback callback) {
+        Query query = db.collection(CONTENT_COLLECTION)
+                .whereEqualTo("contentType", contentType)
+                .orderBy("uploadTime");
+        loadPage(query, pageSize, after, callback);
+    }
+
+    /**
+     * Get one page of all content items, in upload order
+     * @param after Page to continue from, or null for the first page
+     */
+    public void getAllContentPage(int pageSize, ContentPage after, PageCallback callback) {
+        loadPage(db.collection(CONTENT_COLLECTION).orderBy("uploadTime"), pageSize, after, callback);
+    }
+
+    private void loadPage(Query query, int pageSize, ContentPage after, PageCallback callback) {
+        if (after != null && after.lastDocument != null) {
+            query = query.startAfter(after.lastDocument);
+        }
+        query.limit(pageSize)
+                .get()
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        List<DocumentSnapshot> documents = task.getResult().getDocuments();
+                        List<ContentItem> contentItems = new ArrayList<>(documents.size());
+                        for (DocumentSnapshot document : documents) {
+                            contentItems.add(document.toObject(ContentItem.class));
+                        }
+                        DocumentSnapshot last = documents.isEmpty()
+                                ? (after != null ? after.lastDocument : null)
+                                : documents.get(documents.size() - 1);
+                        Log.d(TAG, "Loaded page of " + contentItems.size() + " items");
+                        callback.onSuccess(new ContentPage(contentItems, last, documents.size() == pageSize));
+                    } else {
+                        Log.w(TAG, "Error getting documents.", task.getException());
+                        callback.onError("Failed to load content: " + task.getException().getMessage());
+                    }
+                });
+    }
+
     // Get content by type (PDF or VIDEO)
     public void getContentByType(String contentType, ContentCallback callback) {
         db.collection(CONTENT_COLLECTION)
@@ -0,0 +1,334 @@
+package com.app.zecara.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.core.graphics.drawable.RoundedBitmapDrawable;
+import androidx.core.graphics.drawable.RoundedBitmapDrawableFactory;
+
+import com.app.zecara.R;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads author avatars into feed ImageViews.
+ * Images are fetched and decoded on background threads, downsampled to the
+ * avatar size so a full-resolution photo is never held in memory, and kept in
+ * a shared memory LRU and a disk cache of the downsampled result. A view that
+ * is rebound or recycled cancels its pending load.
+ */
+public class AvatarLoader {
+    private static final String TAG = "AvatarLoader";
+    private static final int AVATAR_SIZE_DP = 40; // Matches the avatar view in the feed layouts
+    private static final String DISK_CACHE_DIR = "avatars";
+    private static final long MAX_DISK_CACHE_BYTES = 5 * 1024 * 1024;
+    private static final int MAX_DISK_CACHE_FILES = 500;
+    private static final int CONNECT_TIMEOUT_MS = 10 * 1000;
+    private static final int THREADS = 2;
+
+    private static AvatarLoader instance;
+    private final Context context;
+    private final File diskCacheDir;
+    private final int sizePx;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<ImageView, Request> requests = new WeakHashMap<>(); // Main thread only
+
+    /**
+     * A view's current avatar; the view shows it once loaded
+     */
+    private static class Request {
+        final String url;
+        Future<?> future; // Null once the bitmap is shown
+        boolean cancelled;
+
+        Request(String url) {
+            this.url = url;
+        }
+    }
+
+    private AvatarLoader(Context context) {
+        this.context = context.getApplicationContext();
+        this.diskCacheDir = new File(this.context.getCacheDir(), DISK_CACHE_DIR);
+        this.sizePx = Math.round(AVATAR_SIZE_DP * this.context.getResources().getDisplayMetrics().density);
+
+        // A downsampled avatar is a few tens of KB, so this holds every avatar of a long feed
+        int cacheBytes = (int) Math.min(4 * 1024 * 1024, Runtime.getRuntime().maxMemory() / 32);
+        memoryCache = new LruCache<String, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "avatar-" + threadCount.incrementAndGet()));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static synchronized AvatarLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new AvatarLoader(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Show an avatar in a view. Must be called on the main thread.
+     * A cached avatar is shown immediately; otherwise the placeholder is shown
+     * until the image has been loaded. Binding the same URL again is a no-op.
+     * @param url http(s) URL of the image, or null to show the placeholder
+     */
+    public void load(String url, ImageView imageView) {
+        Request current = requests.get(imageView);
+        if (current != null && current.url.equals(url)) {
+            return;
+        }
+        cancel(imageView);
+
+        if (url == null || url.isEmpty() || !url.startsWith("http")) {
+            imageView.setImageResource(R.drawable.circle_background);
+            return;
+        }
+
+        Request request = new Request(url);
+        requests.put(imageView, request);
+        Bitmap cached = memoryCache.get(url);
+        if (cached != null) {
+            show(imageView, cached);
+            return;
+        }
+
+        imageView.setImageResource(R.drawable.circle_background);
+        request.future = executor.submit(() -> {
+            Bitmap bitmap = loadBitmap(url);
+            if (bitmap == null) {
+                // Forget the failed request so the next bind tries again
+                mainHandler.post(() -> {
+                    if (requests.get(imageView) == request) {
+                        requests.remove(imageView);
+                    }
+                });
+                return;
+            }
+            memoryCache.put(url, bitmap);
+            mainHandler.post(() -> {
+                if (!request.cancelled && requests.get(imageView) == request) {
+                    request.future = null;
+                    show(imageView, bitmap);
+                }
+            });
+        });
+    }
+
+    /**
+     * Stop a view's pending load, e.g. when its ViewHolder is recycled.
+     * The view keeps whatever it currently shows.
+     */
+    public void cancel(ImageView imageView) {
+        Request request = requests.remove(imageView);
+        if (request != null) {
+            request.cancelled = true;
+            if (request.future != null) {
+                request.future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Drop the in-memory avatars; the disk cache refills it cheaply
+     */
+    public void trimMemory() {
+        memoryCache.evictAll();
+    }
+
+    private void show(ImageView imageView, Bitmap bitmap) {
+        RoundedBitmapDrawable drawable = RoundedBitmapDrawableFactory.create(context.getResources(), bitmap);
+        drawable.setCircular(true);
+        imageView.setImageDrawable(drawable);
+    }
+
+    /**
+     * Downsampled avatar from the disk cache, else from the network. Runs on a loader thread.
+     * @return The avatar, or null if it could not be loaded or the load was cancelled
+     */
+    private Bitmap loadBitmap(String url) {
+        File cacheFile = new File(diskCacheDir, cacheKey(url));
+        if (cacheFile.isFile()) {
+            Bitmap bitmap = BitmapFactory.decodeFile(cacheFile.getPath());
+            if (bitmap != null) {
+                cacheFile.setLastModified(System.currentTimeMillis()); // Recently used, pruned last
+                return bitmap;
+            }
+            cacheFile.delete();
+        }
+
+        // Per thread, in case two views load the same URL at once
+        File downloadFile = new File(diskCacheDir, cacheFile.getName() + "." + Thread.currentThread().getId() + ".part");
+        try {
+            diskCacheDir.mkdirs();
+            if (!download(url, downloadFile) || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            Bitmap bitmap = decodeDownsampled(downloadFile);
+            if (bitmap == null) {
+                Log.w(TAG, "Could not decode avatar: " + url);
+                return null;
+            }
+            writeCacheFile(bitmap, cacheFile);
+            pruneDiskCache();
+            return bitmap;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to load avatar " + url + ": " + e.getMessage());
+            return null;
+        } finally {
+            downloadFile.delete();
+        }
+    }
+
+    private boolean download(String url, File target) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(CONNECT_TIMEOUT_MS);
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                Log.w(TAG, "Avatar request failed with " + connection.getResponseCode() + ": " + url);
+                return false;
+            }
+            try (InputStream in = connection.getInputStream(); OutputStream out = new FileOutputStream(target)) {
+                byte[] buffer = new byte[8 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return false; // Cancelled
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            return true;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Decode an image at the smallest power-of-two subsample that still covers the
+     * avatar size, then scale the shorter side to exactly the avatar size
+     */
+    private Bitmap decodeDownsampled(File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        int shorterSide = Math.min(options.outWidth, options.outHeight);
+        int sampleSize = 1;
+        while (shorterSide / (sampleSize * 2) >= sizePx) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap decoded = BitmapFactory.decodeFile(file.getPath(), options);
+        if (decoded == null) {
+            return null;
+        }
+
+        float scale = sizePx / (float) Math.min(decoded.getWidth(), decoded.getHeight());
+        if (scale >= 1) {
+            return decoded;
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(decoded,
+                Math.max(1, Math.round(decoded.getWidth() * scale)),
+                Math.max(1, Math.round(decoded.getHeight() * scale)), true);
+        if (scaled != decoded) {
+            decoded.recycle();
+        }
+        return scaled;
+    }
+
+    private void writeCacheFile(Bitmap bitmap, File cacheFile) {
+        File tempFile = new File(cacheFile.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to cache avatar: " + e.getMessage());
+            tempFile.delete();
+            return;
+        }
+        if (!tempFile.renameTo(cacheFile)) {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Delete the least recently used cached avatars once the cache is over budget
+     */
+    private synchronized void pruneDiskCache() {
+        File[] files = diskCacheDir.listFiles((dir, name) -> !name.endsWith(".part") && !name.endsWith(".tmp"));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= MAX_DISK_CACHE_BYTES && files.length <= MAX_DISK_CACHE_FILES) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        int remaining = files.length;
+        for (File file : files) {
+            if (total <= MAX_DISK_CACHE_BYTES && remaining <= MAX_DISK_CACHE_FILES) {
+                break;
+            }
+            total -= file.length();
+            remaining--;
+            file.delete();
+        }
+    }
+
+    private static String cacheKey(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.app.zecara.util;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared resources for HTML5 project extraction.
+ * Extraction runs on the thread that delivers the download stream; the engine
+ * caps how many projects inflate at once, lowers the thread's priority while a
+ * job runs and lends each job a large reusable I/O buffer. Housekeeping I/O
+ * such as cache eviction runs on one low-priority engine thread.
+ */
+public class ExtractionEngine {
+    private static final String TAG = "ExtractionEngine";
+    public static final int BUFFER_SIZE = 64 * 1024; // Large buffer so inflation is not dominated by per-call overhead
+
+    private static ExtractionEngine instance;
+    private final ThreadPoolExecutor executor;
+    private final BlockingQueue<byte[]> bufferPool;
+    private final Semaphore permits; // One per job allowed to run at once
+
+    /**
+     * Work to run with a pooled buffer
+     */
+    public interface Job {
+        void run(JobContext context) throws Exception;
+    }
+
+    /**
+     * Per-job state handed to a running job
+     */
+    public static class JobContext {
+        public final byte[] buffer;
+        private long bytes;
+
+        JobContext(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Count bytes written by the job, used for throughput reporting
+         */
+        public void addBytes(long count) {
+            bytes += count;
+        }
+    }
+
+    private ExtractionEngine() {
+        // Leave at least one core for the UI thread and WebView renderers
+        int parallelism = Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() / 2));
+        permits = new Semaphore(parallelism, true);
+        bufferPool = new ArrayBlockingQueue<>(parallelism);
+
+        executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "html5-housekeeping"));
+        executor.allowCoreThreadTimeOut(true);
+        Log.d(TAG, "Extraction engine started with parallelism " + parallelism);
+    }
+
+    public static synchronized ExtractionEngine getInstance() {
+        if (instance == null) {
+            instance = new ExtractionEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Run a job on the calling thread with a pooled buffer. For work that has to consume
+     * a stream on the thread delivering it, such as a download callback, so no engine
+     * thread sits waiting on the network. Blocks while the maximum number of jobs is
+     * already running, and runs at background priority.
+     * @throws IOException The job's failure, wrapped if it was not an IOException
+     */
+    public void runOnCurrentThread(String projectId, Job job) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting to extract " + projectId, e);
+        }
+        int tid = Process.myTid();
+        int priority = Process.getThreadPriority(tid);
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        byte[] buffer = acquireBuffer();
+        JobContext context = new JobContext(buffer);
+        long startTime = SystemClock.elapsedRealtime();
+        try {
+            job.run(context);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        } finally {
+            releaseBuffer(buffer);
+            Process.setThreadPriority(tid, priority);
+            permits.release();
+        }
+        recordThroughput(new ThroughputStats(projectId, context.bytes, SystemClock.elapsedRealtime() - startTime));
+    }
+
+    /**
+     * Run housekeeping I/O, such as cache eviction, on the engine thread in submission order
+     */
+    public void runInBackground(Runnable task) {
+        executor.execute(task);
+    }
+
+    private byte[] acquireBuffer() {
+        byte[] buffer = bufferPool.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    private void releaseBuffer(byte[] buffer) {
+        bufferPool.offer(buffer); // Dropped if the pool is already full
+    }
+
+    /**
+     * Drop pooled buffers under memory pressure; running jobs allocate new ones as needed
+     */
+    public void trimBuffers() {
+        bufferPool.clear();
+    }
+
+    private void recordThroughput(ThroughputStats stats) {
+        Log.d(TAG, stats.toString());
+        FeedTelemetry.record(FeedTelemetry.Metric.EXTRACTION_MS, stats.durationMs);
+    }
+
+    /**
+     * Extraction throughput for one finished project
+     */
+    private static class ThroughputStats {
+        final String projectId;
+        final long bytes;
+        final long durationMs;
+
+        ThroughputStats(String projectId, long bytes, long durationMs) {
+            this.projectId = projectId;
+            this.bytes = bytes;
+            this.durationMs = durationMs;
+        }
+
+        double getMegabytesPerSecond() {
+            if (durationMs == 0) {
+                return 0;
+            }
+            return (bytes / (1024.0 * 1024.0)) / (durationMs / 1000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Extraction %s: %d bytes in %d ms (%.2f MB/s)",
+                    projectId, bytes, durationMs, getMegabytesPerSecond());
+        }
+    }
+}
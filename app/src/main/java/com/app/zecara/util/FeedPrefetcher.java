@@ -0,0 +1,227 @@
+package com.app.zecara.util;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.BatteryManager;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.app.zecara.adapter.FeedAdapter;
+import com.app.zecara.model.ContentItem;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Warms downloadable HTML5 projects ahead of the feed's scroll position.
+ * Uses scroll direction and velocity to predict the next items, caps the
+ * number of concurrent prefetches, and backs off on metered networks and
+ * low battery. Hit/miss counters show whether the lookahead is tuned well.
+ */
+public class FeedPrefetcher extends RecyclerView.OnScrollListener {
+    private static final String TAG = "FeedPrefetcher";
+    private static final int DEFAULT_LOOKAHEAD = 2; // Items ahead to warm when scrolling slowly
+    private static final int MAX_LOOKAHEAD = 5; // Items ahead to warm during a fast fling
+    private static final int MAX_CONCURRENT_PREFETCHES = 2;
+    private static final float FAST_SCROLL_PX_PER_MS = 2.0f;
+    private static final int LOW_BATTERY_PERCENT = 20;
+    private static final long CONDITIONS_CHECK_INTERVAL_MS = 30 * 1000; // Network and battery change slowly
+
+    private final Context context;
+    private final Html5ProjectManager projectManager;
+    private final FeedAdapter adapter;
+    private final Set<String> prefetched = new HashSet<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private int lookahead = DEFAULT_LOOKAHEAD;
+    private boolean conditionsAllowPrefetch;
+    private long conditionsCheckTime = -CONDITIONS_CHECK_INTERVAL_MS;
+    private long lastScrollTime;
+    private float velocityPxPerMs;
+    private int hits;
+    private int lateHits;
+    private int misses;
+
+    public FeedPrefetcher(Context context, Html5ProjectManager projectManager, FeedAdapter adapter) {
+        this.context = context.getApplicationContext();
+        this.projectManager = projectManager;
+        this.adapter = adapter;
+    }
+
+    /**
+     * Start prefetching for a RecyclerView with a LinearLayoutManager
+     */
+    public void attach(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(this);
+        // Warm the first screen's successors before the user starts scrolling
+        recyclerView.post(() -> prefetchFrom(recyclerView, 1));
+    }
+
+    /**
+     * Base number of items to look ahead, raised automatically during fast scrolls
+     */
+    public void setLookahead(int lookahead) {
+        this.lookahead = Math.max(1, Math.min(lookahead, MAX_LOOKAHEAD));
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy == 0) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        long elapsed = Math.max(1, now - lastScrollTime);
+        lastScrollTime = now;
+        // Smooth the velocity so one long frame does not swing the lookahead
+        velocityPxPerMs = 0.7f * velocityPxPerMs + 0.3f * (Math.abs(dy) / (float) elapsed);
+        prefetchFrom(recyclerView, dy > 0 ? 1 : -1);
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            velocityPxPerMs = 0;
+        }
+    }
+
+    private void prefetchFrom(RecyclerView recyclerView, int direction) {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager) || !canPrefetch()) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int edge = direction > 0
+                ? layoutManager.findLastVisibleItemPosition()
+                : layoutManager.findFirstVisibleItemPosition();
+        if (edge == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        int distance = velocityPxPerMs > FAST_SCROLL_PX_PER_MS ? MAX_LOOKAHEAD : lookahead;
+        for (int i = 1; i <= distance && inFlight.size() < MAX_CONCURRENT_PREFETCHES; i++) {
+            int position = edge + direction * i;
+            if (position < 0 || position >= adapter.getItemCount()) {
+                break;
+            }
+            prefetch(adapter.getItem(position));
+        }
+    }
+
+    private void prefetch(ContentItem item) {
+        String projectUrl = item.getProjectUrl();
+        String projectId = item.getId();
+        if (projectUrl == null || projectUrl.isEmpty() || projectId == null
+                || inFlight.contains(projectId) || projectManager.isProjectInstalled(projectId)) {
+            return;
+        }
+
+        Log.d(TAG, "Prefetching project: " + projectId);
+        inFlight.add(projectId);
+        prefetched.add(projectId);
+        projectManager.downloadProject(projectUrl, projectId, item.getProjectVersion(),
+                new Html5ProjectManager.ProjectDownloadCallback() {
+                    @Override
+                    public void onSuccess(String localProjectPath) {
+                        inFlight.remove(projectId);
+                    }
+
+                    @Override
+                    public void onProgress(int percentage) {
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.w(TAG, "Prefetch failed for " + projectId + ": " + error);
+                        inFlight.remove(projectId);
+                        prefetched.remove(projectId);
+                    }
+                });
+    }
+
+    /**
+     * Skip speculative downloads on metered networks, in battery saver, or on low battery.
+     * Called on every scroll frame, so the system services are asked at most once per interval.
+     */
+    private boolean canPrefetch() {
+        long now = SystemClock.uptimeMillis();
+        if (now - conditionsCheckTime >= CONDITIONS_CHECK_INTERVAL_MS) {
+            conditionsCheckTime = now;
+            conditionsAllowPrefetch = checkConditions();
+        }
+        return conditionsAllowPrefetch;
+    }
+
+    private boolean checkConditions() {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null || connectivityManager.isActiveNetworkMetered()) {
+            return false;
+        }
+
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null && powerManager.isPowerSaveMode()) {
+            return false;
+        }
+
+        BatteryManager batteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        if (batteryManager != null && !batteryManager.isCharging()) {
+            int level = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+            if (level > 0 && level < LOW_BATTERY_PERCENT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Record how a downloadable tile found its project when it was bound.
+     * Call before the tile checks the local cache.
+     */
+    public void recordBind(ContentItem item) {
+        String projectId = item.getId();
+        if (projectId == null || item.getProjectUrl() == null || item.getProjectUrl().isEmpty()) {
+            return;
+        }
+        if (projectManager.isProjectInstalled(projectId)) {
+            if (prefetched.remove(projectId)) {
+                hits++;
+            }
+        } else if (inFlight.contains(projectId)) {
+            // Prefetch started but the user got there first; the tile joins the running download
+            prefetched.remove(projectId);
+            lateHits++;
+        } else {
+            misses++;
+        }
+    }
+
+    public PrefetchStats getStats() {
+        return new PrefetchStats(hits, lateHits, misses, lookahead);
+    }
+
+    /**
+     * Prefetch effectiveness counters
+     */
+    public static class PrefetchStats {
+        public final int hits;
+        public final int lateHits;
+        public final int misses;
+        public final int lookahead;
+
+        PrefetchStats(int hits, int lateHits, int misses, int lookahead) {
+            this.hits = hits;
+            this.lateHits = lateHits;
+            this.misses = misses;
+            this.lookahead = lookahead;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Prefetch: %d hits, %d late, %d misses (lookahead %d)",
+                    hits, lateHits, misses, lookahead);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.app.zecara.util;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Feed performance numbers for comparing builds.
+ * Each metric keeps its most recent samples in a fixed-size ring, so memory
+ * stays bounded however long the session runs; counters are plain totals.
+ * {@link #summary()} gives percentiles for logging and {@link #export(Context)}
+ * writes the summary and the raw samples to a file.
+ */
+public final class FeedTelemetry {
+    private static final String TAG = "FeedTelemetry";
+    private static final String EXPORT_DIR = "telemetry";
+    private static final int MAX_EXPORTS = 10; // Older session files are deleted
+    private static final int[] PERCENTILES = {50, 90, 95, 99};
+    private static final long sessionStart = System.currentTimeMillis();
+
+    private static final Map<Metric, Ring> rings = new EnumMap<>(Metric.class);
+    private static final Map<Counter, Long> counters = new EnumMap<>(Counter.class);
+
+    static {
+        for (Metric metric : Metric.values()) {
+            rings.put(metric, new Ring(metric.capacity));
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, 0L);
+        }
+    }
+
+    /**
+     * Timed samples, all in milliseconds
+     */
+    public enum Metric {
+        FRAME_MS(1024),        // Total duration of each feed frame
+        TILE_LOAD_MS(256),     // Tile WebView starting to load its content to onPageFinished
+        DOWNLOAD_MS(64),       // Full project download requested to installed
+        UPDATE_MS(64),         // Delta update requested to installed
+        EXTRACTION_MS(64),     // Extraction job, which overlaps the download when streaming
+        POOL_WAIT_MS(256);     // Acquires that had to wait for a released WebView
+
+        private final int capacity;
+
+        Metric(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    public enum Counter {
+        FRAMES,
+        JANKY_FRAMES,   // Frames whose rendering missed the deadline, including frames dropped from reporting
+        POOL_ACQUIRES,
+        POOL_HITS,      // Acquires served by an idle WebView
+        POOL_CREATES,
+        POOL_DESTROYS
+    }
+
+    private FeedTelemetry() {
+    }
+
+    public static void record(Metric metric, long valueMs) {
+        Ring ring = rings.get(metric);
+        synchronized (ring) {
+            ring.add(valueMs);
+        }
+    }
+
+    public static void increment(Counter counter) {
+        add(counter, 1);
+    }
+
+    public static synchronized void add(Counter counter, long count) {
+        counters.put(counter, counters.get(counter) + count);
+    }
+
+    public static synchronized long getCount(Counter counter) {
+        return counters.get(counter);
+    }
+
+    /**
+     * Snapshot of a metric's retained samples, sorted ascending
+     */
+    public static long[] getSortedSamples(Metric metric) {
+        Ring ring = rings.get(metric);
+        long[] samples;
+        synchronized (ring) {
+            samples = ring.toArray();
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted samples
+     * @return The percentile, or -1 if there are no samples
+     */
+    public static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    public static String summary() {
+        StringBuilder sb = new StringBuilder("Feed telemetry:");
+        for (Metric metric : Metric.values()) {
+            long[] sorted = getSortedSamples(metric);
+            if (sorted.length == 0) {
+                continue;
+            }
+            sb.append(' ').append(metric).append("[n=").append(sorted.length);
+            for (int p : PERCENTILES) {
+                sb.append(" p").append(p).append('=').append(percentile(sorted, p));
+            }
+            sb.append(" max=").append(sorted[sorted.length - 1]).append(']');
+        }
+        synchronized (FeedTelemetry.class) {
+            for (Map.Entry<Counter, Long> counter : counters.entrySet()) {
+                sb.append(' ').append(counter.getKey()).append('=').append(counter.getValue());
+            }
+        }
+        sb.append(String.format(" jank=%.1f%% poolHitRate=%.1f%%",
+                ratio(Counter.JANKY_FRAMES, Counter.FRAMES), ratio(Counter.POOL_HITS, Counter.POOL_ACQUIRES)));
+        return sb.toString();
+    }
+
+    private static synchronized double ratio(Counter part, Counter whole) {
+        long total = counters.get(whole);
+        return total == 0 ? 0 : 100.0 * counters.get(part) / total;
+    }
+
+    /**
+     * Write percentiles, counters and raw samples as JSON to app-specific
+     * external storage (files dir if unavailable), tagged with the build.
+     * Each process writes one file, replaced on every export.
+     * Does file I/O; call off the main thread.
+     * @return The written file, or null if writing failed
+     */
+    public static File export(Context context) {
+        File dir = context.getExternalFilesDir(EXPORT_DIR);
+        if (dir == null) {
+            dir = new File(context.getFilesDir(), EXPORT_DIR);
+        }
+        dir.mkdirs();
+        File file = new File(dir, "feed_" + sessionStart + ".json");
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(toJson(context).toString(2));
+            Log.i(TAG, "Telemetry exported to " + file.getAbsolutePath());
+            pruneExports(dir);
+            return file;
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Failed to export telemetry: " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    private static void pruneExports(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith("feed_") && name.endsWith(".json"));
+        if (files == null || files.length <= MAX_EXPORTS) {
+            return;
+        }
+        // Names carry the session start time, so name order is age order
+        Arrays.sort(files);
+        for (int i = 0; i < files.length - MAX_EXPORTS; i++) {
+            files[i].delete();
+        }
+    }
+
+    private static JSONObject toJson(Context context) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("timestamp", System.currentTimeMillis());
+        json.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+        json.put("sdk", Build.VERSION.SDK_INT);
+        try {
+            json.put("appVersion", context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).versionName);
+        } catch (PackageManager.NameNotFoundException e) {
+            json.put("appVersion", "unknown");
+        }
+
+        JSONObject metrics = new JSONObject();
+        for (Metric metric : Metric.values()) {
+            long[] sorted = getSortedSamples(metric);
+            JSONObject entry = new JSONObject();
+            entry.put("count", sorted.length);
+            for (int p : PERCENTILES) {
+                entry.put("p" + p, percentile(sorted, p));
+            }
+            entry.put("max", sorted.length == 0 ? -1 : sorted[sorted.length - 1]);
+            JSONArray samples = new JSONArray();
+            for (long sample : sorted) {
+                samples.put(sample);
+            }
+            entry.put("samples", samples);
+            metrics.put(metric.name(), entry);
+        }
+        json.put("metrics", metrics);
+
+        JSONObject counterJson = new JSONObject();
+        synchronized (FeedTelemetry.class) {
+            for (Map.Entry<Counter, Long> counter : counters.entrySet()) {
+                counterJson.put(counter.getKey().name(), counter.getValue());
+            }
+        }
+        json.put("counters", counterJson);
+        return json;
+    }
+
+    /**
+     * Fixed-capacity ring of samples; the oldest is overwritten once full
+     */
+    private static class Ring {
+        private final long[] values;
+        private int next;
+        private int size;
+
+        Ring(int capacity) {
+            values = new long[capacity];
+        }
+
+        void add(long value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            size = Math.min(size + 1, values.length);
+        }
+
+        long[] toArray() {
+            long[] copy = new long[size];
+            int start = (next - size + values.length) % values.length;
+            for (int i = 0; i < size; i++) {
+                copy[i] = values[(start + i) % values.length];
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Records the duration of every frame an activity draws, and counts frames whose
+     * rendering work (draw, sync, command issue, buffer swap and, on API 31+, GPU) took
+     * longer than the frame's deadline as janky. Time spent waiting on input or animation
+     * callbacks is not counted against the frame. Frames the platform dropped from
+     * reporting count as janky. Start in onResume, stop in onPause.
+     */
+    public static class FrameTracker implements Window.OnFrameMetricsAvailableListener {
+        private final Activity activity;
+        private HandlerThread thread;
+        private long frameBudgetNs;
+
+        public FrameTracker(Activity activity) {
+            this.activity = activity;
+        }
+
+        public void start() {
+            if (thread != null) {
+                return;
+            }
+            float refreshRate = getRefreshRate();
+            frameBudgetNs = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60f));
+            // Metrics arrive on their own thread so recording never costs the UI thread
+            thread = new HandlerThread("FrameMetrics");
+            thread.start();
+            activity.getWindow().addOnFrameMetricsAvailableListener(this, new Handler(thread.getLooper()));
+        }
+
+        private float getRefreshRate() {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                Display display = activity.getDisplay();
+                return display != null ? display.getRefreshRate() : 0;
+            }
+            return getDefaultDisplayRefreshRate();
+        }
+
+        @SuppressWarnings("deprecation") // Activity.getDisplay only exists from API 30
+        private float getDefaultDisplayRefreshRate() {
+            return activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        }
+
+        public void stop() {
+            if (thread == null) {
+                return;
+            }
+            activity.getWindow().removeOnFrameMetricsAvailableListener(this);
+            thread.quitSafely();
+            thread = null;
+        }
+
+        @Override
+        public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+            // Reports the platform dropped were never measured; count them as missed frames
+            add(Counter.FRAMES, dropCountSinceLastInvocation);
+            add(Counter.JANKY_FRAMES, dropCountSinceLastInvocation);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                    && frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+                return; // Layout of a new window, not scrolling
+            }
+            long totalNs = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            record(Metric.FRAME_MS, totalNs / 1_000_000);
+
+            long renderNs = frameMetrics.getMetric(FrameMetrics.DRAW_DURATION)
+                    + frameMetrics.getMetric(FrameMetrics.SYNC_DURATION)
+                    + frameMetrics.getMetric(FrameMetrics.COMMAND_ISSUE_DURATION)
+                    + frameMetrics.getMetric(FrameMetrics.SWAP_BUFFERS_DURATION);
+            long deadlineNs = frameBudgetNs;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                renderNs += frameMetrics.getMetric(FrameMetrics.GPU_DURATION);
+                deadlineNs = frameMetrics.getMetric(FrameMetrics.DEADLINE);
+            }
+            increment(Counter.FRAMES);
+            if (renderNs > deadlineNs) {
+                increment(Counter.JANKY_FRAMES);
+            }
+        }
+    }
+}
@@ -1,20 +1,81 @@
 package com.app.zecara.util;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.StorageTask;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 public class Html5ProjectManager {
     private static final String TAG = "Html5ProjectManager";
-    private static final String PROJECTS_DIR = "html5_projects";
+    private static final String PROJECTS_DIR = ProjectResourceServer.PROJECTS_DIR;
+    private static final String INDEX_FILE = "index.html";
+    private static final String STAGING_DIR = "html5_staging";
+    private static final String VERSION_FILE = ".version";
+    private static final long MAX_MANIFEST_BYTES = 1024 * 1024;
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    
+    // Downloads in progress, shared by every manager instance so the feed and
+    // the fullscreen viewer attach to the same transfer for a project
+    private static final Map<String, InFlightDownload> inFlightDownloads = new HashMap<>();
+    // Screens currently showing a project; budget eviction leaves these alone
+    private static final Map<String, Integer> projectUsers = new HashMap<>();
+    private static final Object evictionLock = new Object();
+    // Held for writing while an installed project directory is swapped for a new version,
+    // and for reading by lookups of project files, so a lookup never sees the project missing
+    static final ReentrantReadWriteLock installLock = new ReentrantReadWriteLock();
+    // Whether each project checked so far is installed, so per-frame callers never stat the disk;
+    // kept current by every install and delete
+    private static final Map<String, Boolean> installedProjects = new HashMap<>();
+    // Bumped on every install, update and delete, so a document rendered from an older
+    // install is never mistaken for the current one; guarded by installedProjects
+    private static final Map<String, Long> installRevisions = new HashMap<>();
+    private static long lastRevision;
+    private static long clearedRevision; // Revision of every project not installed since the last clearCache
     
     private Context context;
     private FirebaseStorage storage;
+    private ProjectBlobStore blobStore;
+    private ProjectResourceServer resourceServer;
+    private ProjectCacheIndex cacheIndex;
+    private ExtractionEngine extractionEngine;
+    private StorageMode storageMode = StorageMode.EXTRACTED;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * How newly downloaded projects are kept on disk
+     */
+    public enum StorageMode {
+        /** Inflate every entry into html5_projects/<id>, deduplicated through the blob store */
+        EXTRACTED,
+        /** Keep the downloaded ZIP as one file and serve entries from it on demand */
+        ARCHIVE,
+        /**
+         * Extract like EXTRACTED, but keep text assets gzipped on disk and inflate
+         * them while they are served; already-compressed media is stored as-is
+         */
+        COMPRESSED
+    }
 
     public interface ProjectDownloadCallback {
         void onSuccess(String localProjectPath);
@@ -25,71 +86,609 @@ public class Html5ProjectManager {
     public Html5ProjectManager(Context context) {
         this.context = context;
         this.storage = FirebaseStorage.getInstance();
+        this.blobStore = new ProjectBlobStore(context);
+        this.resourceServer = ProjectResourceServer.getInstance(context);
+        this.cacheIndex = ProjectCacheIndex.getInstance(context);
+        this.extractionEngine = ExtractionEngine.getInstance();
+        if (!cacheIndex.isInitialized()) {
+            rebuildCacheIndex();
+        }
+    }
+
+    public void setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+    }
+
+    /**
+     * Download and extract HTML5 project from Firebase Storage, version unknown
+     */
+    public void downloadProject(String storageUrl, String projectId, ProjectDownloadCallback callback) {
+        downloadProject(storageUrl, projectId, 0, callback);
     }
 
     /**
      * Download and extract HTML5 project from Firebase Storage
      * @param storageUrl Firebase Storage download URL
      * @param projectId Unique project identifier
+     * @param version Published version of the archive, recorded so {@link #needsUpdate} knows it is current
      * @param callback Download progress callback
      */
-    public void downloadProject(String storageUrl, String projectId, ProjectDownloadCallback callback) {
+    public void downloadProject(String storageUrl, String projectId, long version, ProjectDownloadCallback callback) {
         Log.d(TAG, "Starting download for project: " + projectId);
         
         // Check if project already exists locally
+        File archiveFile = resourceServer.getArchiveFile(projectId);
+        if (archiveFile.exists()) {
+            Log.d(TAG, "Project archive already exists locally: " + projectId);
+            callback.onSuccess(archiveFile.getAbsolutePath());
+            return;
+        }
         File projectDir = new File(context.getFilesDir(), PROJECTS_DIR + "/" + projectId);
-        if (projectDir.exists() && projectDir.isDirectory()) {
-            File indexFile = new File(projectDir, "index.html");
-            if (indexFile.exists()) {
-                Log.d(TAG, "Project already exists locally: " + projectId);
-                callback.onSuccess(projectDir.getAbsolutePath());
-                return;
-            }
+        if (projectDir.isDirectory() && hasIndex(projectDir)) {
+            Log.d(TAG, "Project already exists locally: " + projectId);
+            callback.onSuccess(projectDir.getAbsolutePath());
+            return;
+        }
+
+        // Attach to a download of the same project that is already running
+        InFlightDownload download = registerDownload(projectId, FeedTelemetry.Metric.DOWNLOAD_MS, callback);
+        if (download == null) {
+            return;
         }
 
         // Create storage reference from URL
-        StorageReference ref = storage.getReferenceFromUrl(storageUrl);
+        StorageReference ref;
+        try {
+            ref = storage.getReferenceFromUrl(storageUrl);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Invalid storage URL for project: " + projectId, e);
+            download.onError("Download failed: " + e.getMessage());
+            return;
+        }
+        
+        if (storageMode == StorageMode.ARCHIVE) {
+            downloadArchive(ref, projectId, download);
+            return;
+        }
         
-        // Create temporary file for download
-        File tempZip = new File(context.getCacheDir(), projectId + ".zip");
+        // Entries are inflated into a staging directory while the archive streams in,
+        // so the ZIP itself never touches disk and extraction overlaps the transfer
+        File stagingDir = new File(context.getFilesDir(), STAGING_DIR + "/" + projectId);
+        deleteProjectDir(stagingDir);
         
-        ref.getFile(tempZip)
+        ExtractionResult result = new ExtractionResult();
+        boolean compress = storageMode == StorageMode.COMPRESSED;
+        // The processor runs on the download's background thread and inflates entries as
+        // the bytes are read, so progress events follow the real transfer; the task only
+        // succeeds once the whole archive has been extracted
+        ref.getStream((taskSnapshot, stream) -> extractionEngine.runOnCurrentThread(projectId,
+                        job -> extractStream(stream, stagingDir, projectId, version, compress, result, job)))
                 .addOnProgressListener(taskSnapshot -> {
-                    double progress = (100.0 * taskSnapshot.getBytesTransferred()) / taskSnapshot.getTotalByteCount();
-                    callback.onProgress((int) progress);
+                    long totalBytes = taskSnapshot.getTotalByteCount();
+                    if (totalBytes > 0) {
+                        double progress = (100.0 * taskSnapshot.getBytesTransferred()) / totalBytes;
+                        download.onProgress((int) progress);
+                    }
                 })
                 .addOnSuccessListener(taskSnapshot -> {
-                    Log.d(TAG, "ZIP downloaded successfully for: " + projectId);
-                    // Extract ZIP file
-                    extractProject(tempZip, projectId, callback);
+                    Log.d(TAG, "Project streamed and extracted for: " + projectId);
+                    publishProject(stagingDir, projectId, result, download);
                 })
                 .addOnFailureListener(exception -> {
                     Log.e(TAG, "Failed to download project: " + projectId, exception);
-                    callback.onError("Download failed: " + exception.getMessage());
-                    // Clean up temp file
-                    if (tempZip.exists()) {
-                        tempZip.delete();
+                    download.onError("Download failed: " + exception.getMessage());
+                    // Clean up partially extracted files
+                    deleteProjectDir(stagingDir);
+                });
+    }
+
+    /**
+     * Register a new download, or attach the callback to one already running
+     * @return The new download to start, or null if the callback joined a running one
+     */
+    private InFlightDownload registerDownload(String projectId, FeedTelemetry.Metric metric,
+                                              ProjectDownloadCallback callback) {
+        InFlightDownload download = new InFlightDownload(projectId, metric);
+        synchronized (inFlightDownloads) {
+            InFlightDownload existing = inFlightDownloads.get(projectId);
+            if (existing != null) {
+                Log.d(TAG, "Joining in-flight download for project: " + projectId);
+                existing.attach(callback);
+                return null;
+            }
+            inFlightDownloads.put(projectId, download);
+        }
+        download.attach(callback);
+        return download;
+    }
+
+    /**
+     * Whether an installed, extracted project is older than the published version.
+     * Archive-mode projects are refreshed by a full download instead.
+     */
+    public boolean needsUpdate(String projectId, long publishedVersion) {
+        File projectDir = new File(context.getFilesDir(), PROJECTS_DIR + "/" + projectId);
+        if (!hasIndex(projectDir)) {
+            return false;
+        }
+        return publishedVersion > getInstalledVersion(projectDir);
+    }
+
+    /**
+     * Update an installed project to the version described by a remote manifest.
+     * Only files whose hash is not already in the blob store are downloaded; the
+     * new version is assembled next to the old one and swapped in with renames.
+     *
+     * Manifest format:
+     * {"version": 3, "blobBaseUrl": "gs://bucket/blobs/",
+     *  "files": [{"path": "index.html", "sha256": "...", "size": 1234}]}
+     * Each file is fetched from blobBaseUrl + sha256.
+     *
+     * @param manifestUrl Firebase Storage URL of the manifest
+     * @param projectId Unique project identifier
+     * @param callback Update progress callback
+     */
+    public void updateProject(String manifestUrl, String projectId, ProjectDownloadCallback callback) {
+        File projectDir = new File(context.getFilesDir(), PROJECTS_DIR + "/" + projectId);
+        if (!hasIndex(projectDir)) {
+            callback.onError("Update failed: project is not installed as extracted files");
+            return;
+        }
+
+        InFlightDownload download = registerDownload(projectId, FeedTelemetry.Metric.UPDATE_MS, callback);
+        if (download == null) {
+            return;
+        }
+
+        StorageReference manifestRef;
+        try {
+            manifestRef = storage.getReferenceFromUrl(manifestUrl);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Invalid manifest URL for project: " + projectId, e);
+            download.onError("Update failed: " + e.getMessage());
+            return;
+        }
+
+        Log.d(TAG, "Checking for delta update of project: " + projectId);
+        manifestRef.getBytes(MAX_MANIFEST_BYTES)
+                .addOnSuccessListener(bytes -> {
+                    RemoteManifest manifest;
+                    try {
+                        manifest = RemoteManifest.parse(new String(bytes, StandardCharsets.UTF_8));
+                    } catch (JSONException e) {
+                        Log.e(TAG, "Invalid manifest for project: " + projectId, e);
+                        download.onError("Update failed: invalid manifest");
+                        return;
                     }
+                    applyDelta(manifest, projectDir, projectId, download);
+                })
+                .addOnFailureListener(exception -> {
+                    Log.e(TAG, "Failed to fetch manifest for project: " + projectId, exception);
+                    download.onError("Update failed: " + exception.getMessage());
                 });
     }
 
     /**
-     * Extract ZIP file to internal storage
+     * Assemble the new version in a staging directory, linking unchanged files from
+     * the blob store and downloading only the blobs that are missing
      */
-    private void extractProject(File zipFile, String projectId, ProjectDownloadCallback callback) {
+    private void applyDelta(RemoteManifest manifest, File projectDir, String projectId, InFlightDownload download) {
+        File stagingDir = new File(context.getFilesDir(), STAGING_DIR + "/" + projectId);
+        deleteProjectDir(stagingDir);
+        stagingDir.mkdirs();
+
+        ExtractionResult result = new ExtractionResult();
+        // Files with identical content share one download
+        Map<String, List<ProjectBlobStore.ManifestEntry>> missing = new LinkedHashMap<>();
         try {
-            File projectDir = new File(context.getFilesDir(), PROJECTS_DIR + "/" + projectId);
-            
-            // Create project directory
-            if (!projectDir.exists()) {
-                projectDir.mkdirs();
+            for (ProjectBlobStore.ManifestEntry entry : manifest.files) {
+                File target = new File(stagingDir, entry.path);
+                target.getParentFile().mkdirs();
+                result.logicalBytes += entry.size;
+                if (!blobStore.linkExisting(entry.hash, target)) {
+                    List<ProjectBlobStore.ManifestEntry> sameContent = missing.get(entry.hash);
+                    if (sameContent == null) {
+                        sameContent = new ArrayList<>();
+                        missing.put(entry.hash, sameContent);
+                    }
+                    sameContent.add(entry);
+                }
             }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to stage update for project: " + projectId, e);
+            download.onError("Update failed: " + e.getMessage());
+            deleteProjectDir(stagingDir);
+            return;
+        }
 
-            // Extract ZIP
-            FileInputStream fis = new FileInputStream(zipFile);
-            ZipInputStream zis = new ZipInputStream(fis);
-            ZipEntry entry;
+        Log.d(TAG, "Delta update for " + projectId + ": " + missing.size() + " blobs to download for "
+                + manifest.files.size() + " files");
+        if (missing.isEmpty()) {
+            publishUpdate(stagingDir, projectDir, projectId, manifest, result, download);
+            return;
+        }
+
+        DeltaProgress progress = new DeltaProgress(missing.values());
+        for (List<ProjectBlobStore.ManifestEntry> sameContent : missing.values()) {
+            ProjectBlobStore.ManifestEntry entry = sameContent.get(0);
+            File target = new File(stagingDir, entry.path);
+            long[] storedBytes = new long[1];
+            StorageReference blobRef;
+            try {
+                blobRef = storage.getReferenceFromUrl(manifest.blobBaseUrl + entry.hash);
+            } catch (IllegalArgumentException e) {
+                failDelta(progress, stagingDir, projectId, entry, e, download);
+                return;
+            }
+
+            // Stored while it downloads, on the download's background thread
+            StorageTask<?> task = blobRef
+                    .getStream((taskSnapshot, stream) -> extractionEngine.runOnCurrentThread(projectId, job -> {
+                        if (progress.failed) {
+                            throw new IOException("Update cancelled");
+                        }
+                        ProjectBlobStore.ManifestEntry stored =
+                                blobStore.storeEntry(stream, entry.path, target, job.buffer);
+                        if (!stored.hash.equals(entry.hash)) {
+                            throw new IOException("Hash mismatch for " + entry.path);
+                        }
+                        job.addBytes(stored.size);
+                        storedBytes[0] = stored.storedBytes;
+                        for (int i = 1; i < sameContent.size(); i++) {
+                            File sameTarget = new File(stagingDir, sameContent.get(i).path);
+                            if (!blobStore.linkExisting(entry.hash, sameTarget)) {
+                                // Kept as a private copy, so there is no blob to link
+                                ProjectBlobStore.copyFile(target, sameTarget);
+                                storedBytes[0] += sameTarget.length();
+                            }
+                        }
+                    }))
+                    .addOnSuccessListener(taskSnapshot -> {
+                        if (progress.failed) {
+                            return;
+                        }
+                        progress.fetchedBytes += entry.size;
+                        progress.remaining--;
+                        result.newPhysicalBytes += storedBytes[0];
+                        if (progress.totalBytes > 0) {
+                            download.onProgress((int) ((100.0 * progress.fetchedBytes) / progress.totalBytes));
+                        }
+                        if (progress.remaining == 0) {
+                            publishUpdate(stagingDir, projectDir, projectId, manifest, result, download);
+                        }
+                    })
+                    .addOnFailureListener(exception -> failDelta(progress, stagingDir, projectId, entry, exception, download));
+            progress.tasks.add(task);
+        }
+    }
+
+    private void failDelta(DeltaProgress progress, File stagingDir, String projectId,
+                           ProjectBlobStore.ManifestEntry entry, Exception exception, InFlightDownload download) {
+        if (progress.failed) {
+            return;
+        }
+        progress.failed = true;
+        Log.e(TAG, "Failed to fetch " + entry.path + " for project: " + projectId, exception);
+        // Stop the other blobs writing into the staging directory before it is deleted
+        for (StorageTask<?> task : progress.tasks) {
+            if (!task.isComplete()) {
+                task.cancel();
+            }
+        }
+        download.onError("Update failed: " + exception.getMessage());
+        extractionEngine.runInBackground(() -> deleteProjectDir(stagingDir));
+    }
+
+    /**
+     * Swap the staged version in place of the installed one and release blobs
+     * that only the old version used. The file work runs on the extraction engine's
+     * housekeeping thread; the callback is invoked on the main thread.
+     */
+    private void publishUpdate(File stagingDir, File projectDir, String projectId, RemoteManifest manifest,
+                               ExtractionResult result, ProjectDownloadCallback callback) {
+        extractionEngine.runInBackground(() -> {
+            String error = installUpdate(stagingDir, projectDir, projectId, manifest, result);
+            if (error != null) {
+                deleteProjectDir(stagingDir);
+                mainHandler.post(() -> callback.onError(error));
+                return;
+            }
+            Log.d(TAG, "Project updated to version " + manifest.version + ": " + projectId);
+            mainHandler.post(() -> callback.onSuccess(projectDir.getAbsolutePath()));
+        });
+    }
+
+    /**
+     * @return null once the update is installed, else why it failed
+     */
+    private String installUpdate(File stagingDir, File projectDir, String projectId, RemoteManifest manifest,
+                                 ExtractionResult result) {
+        if (!hasIndex(stagingDir)) {
+            return "Invalid project: index.html not found";
+        }
+
+        try {
+            blobStore.writeManifest(stagingDir, manifest.files);
+            writeInstalledVersion(stagingDir, manifest.version);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write manifest for project: " + projectId, e);
+            return "Update failed: " + e.getMessage();
+        }
+
+        File oldDir = new File(context.getFilesDir(), STAGING_DIR + "/" + projectId + ".old");
+        deleteProjectDir(oldDir);
+        installLock.writeLock().lock();
+        try {
+            if (!projectDir.renameTo(oldDir)) {
+                return "Update failed: could not replace project";
+            }
+            if (!stagingDir.renameTo(projectDir)) {
+                oldDir.renameTo(projectDir);
+                return "Update failed: could not install project";
+            }
+        } finally {
+            installLock.writeLock().unlock();
+        }
+
+        setInstalled(projectId, true);
+        long freedBytes = removeProjectDir(oldDir);
+        cacheIndex.recordInstall(projectId, result.logicalBytes, result.newPhysicalBytes - freedBytes);
+        enforceBudget(projectId);
+        return null;
+    }
+
+    private long getInstalledVersion(File projectDir) {
+        File versionFile = new File(projectDir, VERSION_FILE);
+        if (!versionFile.exists()) {
+            return 0;
+        }
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(versionFile));
+            try {
+                String line = reader.readLine();
+                return line != null ? Long.parseLong(line.trim()) : 0;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | NumberFormatException e) {
+            Log.w(TAG, "Could not read installed version in " + projectDir + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private void writeInstalledVersion(File projectDir, long version) throws IOException {
+        FileWriter writer = new FileWriter(new File(projectDir, VERSION_FILE));
+        try {
+            writer.write(String.valueOf(version));
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Per-file hash manifest published alongside a project
+     */
+    private static class RemoteManifest {
+        long version;
+        String blobBaseUrl;
+        final List<ProjectBlobStore.ManifestEntry> files = new ArrayList<>();
+
+        static RemoteManifest parse(String json) throws JSONException {
+            JSONObject root = new JSONObject(json);
+            RemoteManifest manifest = new RemoteManifest();
+            manifest.version = root.getLong("version");
+            manifest.blobBaseUrl = root.getString("blobBaseUrl");
+            JSONArray files = root.getJSONArray("files");
+            for (int i = 0; i < files.length(); i++) {
+                JSONObject file = files.getJSONObject(i);
+                String path = file.getString("path");
+                String hash = file.getString("sha256");
+                // Security check: prevent directory traversal, here and through the blob path
+                if (path.contains("..") || path.startsWith("/") || !SHA256_HEX.matcher(hash).matches()) {
+                    Log.w(TAG, "Skipping suspicious manifest entry: " + path + " (" + hash + ")");
+                    continue;
+                }
+                manifest.files.add(new ProjectBlobStore.ManifestEntry(path, hash, file.getLong("size")));
+            }
+            return manifest;
+        }
+    }
+
+    /**
+     * Tracks outstanding blob downloads for a delta update (main thread only)
+     */
+    private static class DeltaProgress {
+        int remaining;
+        long totalBytes;
+        long fetchedBytes;
+        volatile boolean failed; // Also read by the stream processors
+        final List<StorageTask<?>> tasks = new ArrayList<>();
+
+        /**
+         * @param missing Files to download, grouped by content; each group is fetched once
+         */
+        DeltaProgress(Collection<List<ProjectBlobStore.ManifestEntry>> missing) {
+            remaining = missing.size();
+            for (List<ProjectBlobStore.ManifestEntry> sameContent : missing) {
+                totalBytes += sameContent.get(0).size;
+            }
+        }
+    }
+
+    /**
+     * Stop delivering events for a download to a callback, e.g. when the view
+     * that requested it is recycled or destroyed. The transfer itself continues
+     * so other callers, or a later request, can still use the result.
+     */
+    public void detachCallback(String projectId, ProjectDownloadCallback callback) {
+        synchronized (inFlightDownloads) {
+            InFlightDownload download = inFlightDownloads.get(projectId);
+            if (download != null) {
+                download.detach(callback);
+            }
+        }
+    }
+
+    /**
+     * Whether a download for the project is currently running
+     */
+    public boolean isDownloading(String projectId) {
+        synchronized (inFlightDownloads) {
+            return inFlightDownloads.containsKey(projectId);
+        }
+    }
+
+    /**
+     * A running download that fans its events out to every attached callback.
+     * Late callers receive the latest progress immediately on attach.
+     */
+    private static class InFlightDownload implements ProjectDownloadCallback {
+        private final String projectId;
+        private final FeedTelemetry.Metric metric; // Full download or delta update
+        private final List<ProjectDownloadCallback> callbacks = new ArrayList<>();
+        private final long startTime = SystemClock.elapsedRealtime();
+        private int lastProgress = -1;
+
+        InFlightDownload(String projectId, FeedTelemetry.Metric metric) {
+            this.projectId = projectId;
+            this.metric = metric;
+        }
+
+        void attach(ProjectDownloadCallback callback) {
+            int progress;
+            synchronized (this) {
+                callbacks.add(callback);
+                progress = lastProgress;
+            }
+            if (progress >= 0) {
+                callback.onProgress(progress);
+            }
+        }
+
+        synchronized void detach(ProjectDownloadCallback callback) {
+            callbacks.remove(callback);
+        }
+
+        private synchronized List<ProjectDownloadCallback> snapshot() {
+            return new ArrayList<>(callbacks);
+        }
+
+        private List<ProjectDownloadCallback> finish() {
+            synchronized (inFlightDownloads) {
+                inFlightDownloads.remove(projectId);
+            }
+            return snapshot();
+        }
+
+        @Override
+        public void onSuccess(String localProjectPath) {
+            FeedTelemetry.record(metric, SystemClock.elapsedRealtime() - startTime);
+            for (ProjectDownloadCallback callback : finish()) {
+                callback.onSuccess(localProjectPath);
+            }
+        }
+
+        @Override
+        public void onProgress(int percentage) {
+            synchronized (this) {
+                lastProgress = percentage;
+            }
+            for (ProjectDownloadCallback callback : snapshot()) {
+                callback.onProgress(percentage);
+            }
+        }
 
+        @Override
+        public void onError(String error) {
+            for (ProjectDownloadCallback callback : finish()) {
+                callback.onError(error);
+            }
+        }
+    }
+
+    /**
+     * Download the project ZIP and keep it as a single file for no-extract serving
+     */
+    private void downloadArchive(StorageReference ref, String projectId, ProjectDownloadCallback callback) {
+        File archiveFile = resourceServer.getArchiveFile(projectId);
+        File partFile = new File(archiveFile.getPath() + ".part");
+        archiveFile.getParentFile().mkdirs();
+
+        ref.getFile(partFile)
+                .addOnProgressListener(taskSnapshot -> {
+                    long totalBytes = taskSnapshot.getTotalByteCount();
+                    if (totalBytes > 0) {
+                        double progress = (100.0 * taskSnapshot.getBytesTransferred()) / totalBytes;
+                        callback.onProgress((int) progress);
+                    }
+                })
+                .addOnSuccessListener(taskSnapshot -> {
+                    Log.d(TAG, "Archive downloaded successfully for: " + projectId);
+                    publishArchive(partFile, archiveFile, projectId, callback);
+                })
+                .addOnFailureListener(exception -> {
+                    Log.e(TAG, "Failed to download project archive: " + projectId, exception);
+                    callback.onError("Download failed: " + exception.getMessage());
+                    partFile.delete();
+                });
+    }
+
+    /**
+     * Check the archive has an entry page and move it into place. Installing is a single rename.
+     */
+    private void publishArchive(File partFile, File archiveFile, String projectId, ProjectDownloadCallback callback) {
+        boolean hasIndex;
+        try {
+            ZipFile zipFile = new ZipFile(partFile);
+            try {
+                hasIndex = zipFile.getEntry("index.html") != null;
+            } finally {
+                zipFile.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Downloaded archive is not readable: " + projectId, e);
+            callback.onError("Invalid project: " + e.getMessage());
+            partFile.delete();
+            return;
+        }
+
+        if (!hasIndex) {
+            Log.e(TAG, "index.html not found in project archive: " + projectId);
+            callback.onError("Invalid project: index.html not found");
+            partFile.delete();
+            return;
+        }
+
+        resourceServer.closeArchive(projectId);
+        if (partFile.renameTo(archiveFile)) {
+            Log.d(TAG, "Project archive installed: " + projectId);
+            setInstalled(projectId, true);
+            cacheIndex.recordInstall(projectId, archiveFile.length(), archiveFile.length());
+            enforceBudget(projectId);
+            callback.onSuccess(archiveFile.getAbsolutePath());
+        } else {
+            Log.e(TAG, "Failed to move project archive into place: " + projectId);
+            callback.onError("Download failed: could not install project");
+            partFile.delete();
+        }
+    }
+
+    /**
+     * Inflate ZIP entries from the download stream as the bytes arrive, then write the
+     * manifest and version marker so the staged project is complete before it is published.
+     * Runs on the download's stream thread, inside an extraction engine job.
+     */
+    private void extractStream(InputStream inputStream, File stagingDir, String projectId, long version,
+                               boolean compress, ExtractionResult result,
+                               ExtractionEngine.JobContext job) throws IOException {
+        if (!stagingDir.exists()) {
+            stagingDir.mkdirs();
+        }
+
+        List<ProjectBlobStore.ManifestEntry> manifest = new ArrayList<>();
+        ZipInputStream zis = new ZipInputStream(new BufferedInputStream(inputStream, ExtractionEngine.BUFFER_SIZE));
+        try {
+            ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
                 String fileName = entry.getName();
                 
@@ -99,7 +698,7 @@ public class Html5ProjectManager {
                     continue;
                 }
 
-                File outputFile = new File(projectDir, fileName);
+                File outputFile = new File(stagingDir, fileName);
                 
                 if (entry.isDirectory()) {
                     outputFile.mkdirs();
@@ -107,41 +706,53 @@ public class Html5ProjectManager {
                     // Create parent directories
                     outputFile.getParentFile().mkdirs();
                     
-                    // Write file content
-                    FileOutputStream fos = new FileOutputStream(outputFile);
-                    byte[] buffer = new byte[1024];
-                    int length;
-                    while ((length = zis.read(buffer)) > 0) {
-                        fos.write(buffer, 0, length);
-                    }
-                    fos.close();
+                    // Store content once in the shared blob store and link it here
+                    ProjectBlobStore.ManifestEntry manifestEntry = blobStore.storeZipEntry(zis, entry, fileName,
+                            outputFile, job.buffer, compress && isCompressible(fileName));
+                    manifest.add(manifestEntry);
+                    job.addBytes(manifestEntry.size);
+                    result.logicalBytes += manifestEntry.size;
+                    result.newPhysicalBytes += manifestEntry.storedBytes;
                 }
                 zis.closeEntry();
             }
-
+        } finally {
             zis.close();
-            fis.close();
+        }
+        blobStore.writeManifest(stagingDir, manifest);
+        writeInstalledVersion(stagingDir, version);
+        Log.d(TAG, "Finished inflating stream for: " + projectId);
+    }
 
-            // Clean up ZIP file
-            zipFile.delete();
+    /**
+     * Move a fully extracted staging directory into place so a project is never
+     * visible to {@link #getLocalProjectPath} while it is still half written
+     */
+    private void publishProject(File stagingDir, String projectId, ExtractionResult result,
+                                ProjectDownloadCallback callback) {
+        if (!hasIndex(stagingDir)) {
+            Log.e(TAG, "index.html not found in extracted project: " + projectId);
+            callback.onError("Invalid project: index.html not found");
+            deleteProjectDir(stagingDir);
+            return;
+        }
 
-            // Verify index.html exists
-            File indexFile = new File(projectDir, "index.html");
-            if (indexFile.exists()) {
-                Log.d(TAG, "Project extracted successfully: " + projectId);
-                callback.onSuccess(projectDir.getAbsolutePath());
-            } else {
-                Log.e(TAG, "index.html not found in extracted project: " + projectId);
-                callback.onError("Invalid project: index.html not found");
-                // Clean up extracted files
-                deleteProjectDir(projectDir);
-            }
+        File projectDir = new File(context.getFilesDir(), PROJECTS_DIR + "/" + projectId);
+        if (projectDir.exists()) {
+            cacheIndex.remove(projectId, removeProjectDir(projectDir));
+        }
+        projectDir.getParentFile().mkdirs();
 
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to extract project: " + projectId, e);
-            callback.onError("Extraction failed: " + e.getMessage());
-            // Clean up
-            zipFile.delete();
+        if (stagingDir.renameTo(projectDir)) {
+            Log.d(TAG, "Project extracted successfully: " + projectId);
+            setInstalled(projectId, true);
+            cacheIndex.recordInstall(projectId, result.logicalBytes, result.newPhysicalBytes);
+            enforceBudget(projectId);
+            callback.onSuccess(projectDir.getAbsolutePath());
+        } else {
+            Log.e(TAG, "Failed to move extracted project into place: " + projectId);
+            callback.onError("Extraction failed: could not install project");
+            deleteProjectDir(stagingDir);
         }
     }
 
@@ -149,13 +760,173 @@ public class Html5ProjectManager {
      * Get local path for a project (if it exists)
      */
     public String getLocalProjectPath(String projectId) {
+        if (resourceServer.getArchiveFile(projectId).exists()) {
+            cacheIndex.touch(projectId);
+            return ProjectResourceServer.getProjectUrl(projectId);
+        }
+
         File projectDir = new File(context.getFilesDir(), PROJECTS_DIR + "/" + projectId);
-        File indexFile = new File(projectDir, "index.html");
+        File indexFile = new File(projectDir, INDEX_FILE);
         
-        if (indexFile.exists()) {
-            return "file://" + indexFile.getAbsolutePath();
+        installLock.readLock().lock();
+        try {
+            if (indexFile.exists()) {
+                cacheIndex.touch(projectId);
+                return "file://" + indexFile.getAbsolutePath();
+            }
+            if (new File(projectDir, INDEX_FILE + ProjectBlobStore.COMPRESSED_SUFFIX).exists()) {
+                // Compressed at rest, so it has to be served (and inflated) by the resource server
+                cacheIndex.touch(projectId);
+                return ProjectResourceServer.getProjectUrl(projectId);
+            }
+            return null;
+        } finally {
+            installLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether an extracted project directory has its entry page, plain or compressed
+     */
+    private static boolean hasIndex(File projectDir) {
+        return new File(projectDir, INDEX_FILE).exists()
+                || new File(projectDir, INDEX_FILE + ProjectBlobStore.COMPRESSED_SUFFIX).exists();
+    }
+
+    /**
+     * Text assets worth compressing at rest; images, audio, video and fonts are
+     * usually compressed already and are stored as-is
+     */
+    private static boolean isCompressible(String fileName) {
+        String name = fileName.toLowerCase();
+        return name.endsWith(".html") || name.endsWith(".htm") || name.endsWith(".js")
+                || name.endsWith(".mjs") || name.endsWith(".css") || name.endsWith(".json")
+                || name.endsWith(".svg") || name.endsWith(".txt") || name.endsWith(".xml");
+    }
+
+    /**
+     * Whether a project is installed locally, without counting as an access.
+     * Only the first check of a project touches the disk.
+     */
+    public boolean isProjectInstalled(String projectId) {
+        synchronized (installedProjects) {
+            Boolean installed = installedProjects.get(projectId);
+            if (installed != null) {
+                return installed;
+            }
+        }
+        File projectDir = new File(context.getFilesDir(), PROJECTS_DIR + "/" + projectId);
+        boolean installed = resourceServer.getArchiveFile(projectId).exists() || hasIndex(projectDir);
+        synchronized (installedProjects) {
+            // An install or delete that finished meanwhile has already recorded the newer state
+            if (!installedProjects.containsKey(projectId)) {
+                installedProjects.put(projectId, installed);
+            }
+        }
+        return installed;
+    }
+
+    private static void setInstalled(String projectId, boolean installed) {
+        synchronized (installedProjects) {
+            installedProjects.put(projectId, installed);
+            installRevisions.put(projectId, ++lastRevision);
+        }
+    }
+
+    /**
+     * Changes whenever the project's files on disk are installed, replaced or deleted
+     */
+    public static long getInstallRevision(String projectId) {
+        synchronized (installedProjects) {
+            Long revision = installRevisions.get(projectId);
+            return revision != null ? revision : clearedRevision;
+        }
+    }
+
+    /**
+     * Count a screen showing a project so it is not evicted from under it.
+     * Pair every call with {@link #releaseProject}.
+     */
+    public static void retainProject(String projectId) {
+        synchronized (projectUsers) {
+            Integer users = projectUsers.get(projectId);
+            projectUsers.put(projectId, users == null ? 1 : users + 1);
+        }
+    }
+
+    public static void releaseProject(String projectId) {
+        synchronized (projectUsers) {
+            Integer users = projectUsers.get(projectId);
+            if (users == null || users <= 1) {
+                projectUsers.remove(projectId);
+            } else {
+                projectUsers.put(projectId, users - 1);
+            }
+        }
+    }
+
+    /**
+     * Whether a screen, a pooled WebView, an archive response or a transfer is using the project
+     */
+    private boolean isProjectInUse(String projectId) {
+        synchronized (projectUsers) {
+            if (projectUsers.containsKey(projectId)) {
+                return true;
+            }
+        }
+        if (isDownloading(projectId) || resourceServer.isArchiveInUse(projectId)) {
+            return true;
+        }
+        WebViewPool pool = WebViewPool.peekInstance();
+        return pool != null && pool.isShowingContent(projectId);
+    }
+
+    /**
+     * Mark a project as just opened so it is evicted last
+     */
+    public void touchProject(String projectId) {
+        cacheIndex.touch(projectId);
+    }
+
+    /**
+     * Set the maximum bytes cached projects may occupy on disk.
+     * Least recently opened projects are evicted immediately if the cache is over budget.
+     */
+    public void setCacheBudgetBytes(long budgetBytes) {
+        cacheIndex.setBudgetBytes(budgetBytes);
+        enforceBudget(null);
+    }
+
+    /**
+     * Evict least recently opened projects until the cache fits its budget.
+     * Deleting unlinks whole project directories, so it runs on the extraction engine's housekeeping thread.
+     * @param keepProjectId Project that must not be evicted (e.g. the one just installed), may be null
+     */
+    private void enforceBudget(String keepProjectId) {
+        if (cacheIndex.getPhysicalBytes() <= cacheIndex.getBudgetBytes()) {
+            return;
+        }
+        extractionEngine.runInBackground(() -> evictOverBudget(keepProjectId));
+    }
+
+    private void evictOverBudget(String keepProjectId) {
+        synchronized (evictionLock) {
+            long budgetBytes = cacheIndex.getBudgetBytes();
+            for (ProjectCacheIndex.Entry entry : cacheIndex.getEvictionOrder()) {
+                if (cacheIndex.getPhysicalBytes() <= budgetBytes) {
+                    break;
+                }
+                if (entry.projectId.equals(keepProjectId)) {
+                    continue;
+                }
+                if (isProjectInUse(entry.projectId)) {
+                    Log.d(TAG, "Not evicting project in use: " + entry.projectId);
+                    continue;
+                }
+                Log.d(TAG, "Evicting project over cache budget: " + entry.projectId);
+                deleteProject(entry.projectId);
+            }
         }
-        return null;
     }
 
     /**
@@ -167,17 +938,51 @@ public class Html5ProjectManager {
             deleteProjectDir(projectsDir);
             Log.d(TAG, "Cleared HTML5 projects cache");
         }
+        blobStore.clear();
+        resourceServer.closeAll();
+        deleteProjectDir(new File(context.getFilesDir(), ProjectResourceServer.ARCHIVES_DIR));
+        cacheIndex.clear();
+        synchronized (installedProjects) {
+            installedProjects.clear();
+            installRevisions.clear();
+            clearedRevision = ++lastRevision;
+        }
     }
 
     /**
      * Delete specific project
      */
     public void deleteProject(String projectId) {
+        setInstalled(projectId, false);
+        long freedBytes = 0;
         File projectDir = new File(context.getFilesDir(), PROJECTS_DIR + "/" + projectId);
         if (projectDir.exists()) {
-            deleteProjectDir(projectDir);
+            freedBytes += removeProjectDir(projectDir);
             Log.d(TAG, "Deleted project: " + projectId);
         }
+        File archiveFile = resourceServer.getArchiveFile(projectId);
+        if (archiveFile.exists()) {
+            resourceServer.closeArchive(projectId);
+            freedBytes += archiveFile.length();
+            archiveFile.delete();
+            Log.d(TAG, "Deleted project archive: " + projectId);
+        }
+        cacheIndex.remove(projectId, freedBytes);
+    }
+
+    /**
+     * Delete a project directory and any shared blobs only it referenced
+     * @return Bytes actually freed on disk
+     */
+    private long removeProjectDir(File projectDir) {
+        Map<String, ProjectBlobStore.ManifestEntry> manifest = blobStore.readManifest(projectDir);
+        if (manifest.isEmpty()) {
+            // Project predates the blob store, its files are not shared
+            long size = getDirSizeBytes(projectDir);
+            deleteProjectDir(projectDir);
+            return size;
+        }
+        return blobStore.releaseProject(projectDir, manifest.values());
     }
 
     private void deleteProjectDir(File dir) {
@@ -193,11 +998,52 @@ public class Html5ProjectManager {
     }
 
     /**
-     * Get total size of cached projects in MB
+     * Get total size of cached projects in MB, read from the cache index
+     * @return Logical size (sum of every project's files) and physical size on disk after deduplication
      */
-    public long getCacheSizeMB() {
+    public CacheSize getCacheSizeMB() {
+        return new CacheSize(cacheIndex.getLogicalBytes() / (1024 * 1024),
+                cacheIndex.getPhysicalBytes() / (1024 * 1024));
+    }
+
+    /**
+     * Populate the cache index from disk. Only needed once, for projects
+     * installed before the index existed.
+     */
+    private void rebuildCacheIndex() {
+        Log.d(TAG, "Rebuilding HTML5 cache index from disk");
         File projectsDir = new File(context.getFilesDir(), PROJECTS_DIR);
-        return getDirSizeBytes(projectsDir) / (1024 * 1024);
+        File[] projectDirs = projectsDir.listFiles();
+        if (projectDirs != null) {
+            for (File projectDir : projectDirs) {
+                if (projectDir.isDirectory()) {
+                    cacheIndex.recordInstall(projectDir.getName(), getDirSizeBytes(projectDir), 0);
+                }
+            }
+        }
+
+        long archiveBytes = 0;
+        File[] archives = new File(context.getFilesDir(), ProjectResourceServer.ARCHIVES_DIR).listFiles();
+        if (archives != null) {
+            for (File archive : archives) {
+                String name = archive.getName();
+                if (name.endsWith(".zip")) {
+                    cacheIndex.recordInstall(name.substring(0, name.length() - 4), archive.length(), 0);
+                    archiveBytes += archive.length();
+                }
+            }
+        }
+
+        cacheIndex.setPhysicalBytes(blobStore.getPhysicalSizeBytes(projectsDir) + archiveBytes);
+        cacheIndex.markInitialized();
+    }
+
+    /**
+     * Sizes accumulated while a project is extracted
+     */
+    private static class ExtractionResult {
+        long logicalBytes;
+        long newPhysicalBytes;
     }
 
     private long getDirSizeBytes(File dir) {
@@ -216,4 +1062,22 @@ public class Html5ProjectManager {
         }
         return size;
     }
+
+    /**
+     * Cache size report, before and after deduplication
+     */
+    public static class CacheSize {
+        public final long logicalMB;
+        public final long physicalMB;
+
+        CacheSize(long logicalMB, long physicalMB) {
+            this.logicalMB = logicalMB;
+            this.physicalMB = physicalMB;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("HTML5 cache: %d MB logical, %d MB on disk", logicalMB, physicalMB);
+        }
+    }
 }
@@ -0,0 +1,121 @@
+package com.app.zecara.util;
+
+import android.util.LruCache;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wraps inline HTML5 content in a document shell.
+ * The shell is split into constant parts once, the styles live in shared
+ * stylesheets served from the virtual origin (so every document links the
+ * same cacheable URL instead of carrying its own inline copy), and rendered
+ * documents are kept per content id so rebinding an item reuses them.
+ */
+public final class HtmlTemplate {
+    /** First path segment under the virtual origin for shared template resources */
+    public static final String SHARED_DIR = "_shared";
+    private static final String INLINE_DIR = "_inline";
+    private static final int MAX_CACHED_CHARS = 512 * 1024; // Per variant
+
+    /**
+     * Styling of the wrapped document
+     */
+    public enum Variant {
+        FEED("feed.css",
+                "body { margin: 0; padding: 8px; font-family: Arial, sans-serif; background-color: #f5f5f5; }" +
+                "img { max-width: 100%; height: auto; border-radius: 8px; }" +
+                "video { max-width: 100%; height: auto; border-radius: 8px; }" +
+                "h1, h2, h3 { margin-top: 0; color: #333; }" +
+                "p { line-height: 1.4; color: #666; }" +
+                ".card { background: white; border-radius: 8px; padding: 16px; box-shadow: 0 2px 4px rgba(0,0,0,0.1); }"),
+        FULLSCREEN("fullscreen.css",
+                "body { margin: 0; padding: 16px; font-family: Arial, sans-serif; background-color: #f5f5f5; }" +
+                "img { max-width: 100%; height: auto; border-radius: 8px; }" +
+                "video { max-width: 100%; height: auto; border-radius: 8px; }" +
+                "h1, h2, h3 { margin-top: 0; color: #333; }" +
+                "p { line-height: 1.6; color: #666; }" +
+                ".card { background: white; border-radius: 12px; padding: 20px; box-shadow: 0 4px 8px rgba(0,0,0,0.1); }" +
+                "button { background: #2196F3; color: white; border: none; padding: 12px 24px; border-radius: 8px; cursor: pointer; font-size: 16px; }" +
+                "button:hover { background: #1976D2; }");
+
+        private final String fileName;
+        private final byte[] stylesheet;
+        private final String head;
+        private final LruCache<String, Document> documents;
+
+        Variant(String fileName, String css) {
+            this.fileName = fileName;
+            this.stylesheet = css.getBytes(StandardCharsets.UTF_8);
+            this.head = "<!DOCTYPE html><html><head>" +
+                    "<meta name='viewport' content='width=device-width, initial-scale=1.0'>" +
+                    "<link rel='stylesheet' href='" + ProjectResourceServer.ORIGIN + SHARED_DIR + "/" + fileName + "'>" +
+                    "</head><body><div class='card'>";
+            this.documents = new LruCache<String, Document>(MAX_CACHED_CHARS) {
+                @Override
+                protected int sizeOf(String key, Document document) {
+                    return document.html.length();
+                }
+            };
+        }
+    }
+
+    private static final String TAIL = "</div></body></html>";
+
+    /**
+     * A rendered document and the base URL to load it with
+     */
+    public static final class Document {
+        public final String html;
+        public final String baseUrl;
+        private final String source;
+
+        Document(String html, String baseUrl, String source) {
+            this.html = html;
+            this.baseUrl = baseUrl;
+            this.source = source;
+        }
+    }
+
+    private HtmlTemplate() {
+    }
+
+    /**
+     * Wrap inline content, reusing the cached document when the item is unchanged.
+     * Load the result with {@code loadDataWithBaseURL(document.baseUrl, document.html, "text/html", "UTF-8", null)}.
+     * @param contentId Item id used as cache key, or null to skip caching
+     */
+    public static Document render(String contentId, String htmlContent, Variant variant) {
+        if (contentId != null) {
+            Document cached = variant.documents.get(contentId);
+            if (cached != null && cached.source.equals(htmlContent)) {
+                return cached;
+            }
+        }
+
+        String html = new StringBuilder(variant.head.length() + htmlContent.length() + TAIL.length())
+                .append(variant.head)
+                .append(htmlContent)
+                .append(TAIL)
+                .toString();
+        // A real origin, unlike a null base URL, lets the WebView cache what the document links to
+        String baseUrl = ProjectResourceServer.ORIGIN + INLINE_DIR + "/" + (contentId != null ? contentId + "/" : "");
+        Document document = new Document(html, baseUrl, htmlContent);
+        if (contentId != null) {
+            variant.documents.put(contentId, document);
+        }
+        return document;
+    }
+
+    /**
+     * Stylesheet bytes for a shared template resource
+     * @return Stylesheet, or null if no variant uses this file name
+     */
+    static byte[] getSharedResource(String fileName) {
+        for (Variant variant : Variant.values()) {
+            if (variant.fileName.equals(fileName)) {
+                return variant.stylesheet;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.app.zecara.util;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a single feed tile live at a time.
+ * The most visible tile holds a running WebView; every other on-screen tile
+ * shows a frozen frame captured from its WebView and gives the WebView back
+ * to the pool, so only one renderer runs scripts, animations and timers.
+ *
+ * Tiles are only given content once they have settled: the list is idle, or
+ * the tile has stayed mostly visible for a moment. Tiles that fly past during
+ * a fling never touch a WebView, and loads are cancelled when a tile scrolls away.
+ */
+public class LiveTileScheduler extends RecyclerView.OnScrollListener
+        implements RecyclerView.OnChildAttachStateChangeListener {
+    private static final String TAG = "LiveTileScheduler";
+    private static final long RETRY_DELAY_MS = 300; // Re-check tiles that were still loading
+    private static final float SETTLE_VISIBLE_FRACTION = 0.6f; // How much of a tile must show to count as looked at
+    private static final long SETTLE_DWELL_MS = 250; // How long it must stay that visible while scrolling
+
+    private final Runnable updateRunnable = this::update;
+    private final Map<LiveTile, Long> visibleSince = new HashMap<>();
+    private RecyclerView recyclerView;
+    private LiveTile focusedTile;
+
+    /**
+     * A feed tile that can switch between a live WebView and a frozen frame
+     */
+    public interface LiveTile {
+        /**
+         * Make the tile interactive, acquiring a WebView if it has none
+         */
+        void goLive();
+
+        /**
+         * Capture the current frame and release the WebView.
+         * A tile with nothing to show yet loads its content first.
+         * @return false if the tile has not drawn its content yet and should be asked again
+         */
+        boolean freeze();
+
+        /**
+         * Abandon a load that has not finished, e.g. because the tile scrolled out of view
+         */
+        void cancelLoad();
+    }
+
+    /**
+     * Start scheduling tiles of a RecyclerView
+     */
+    public void attach(RecyclerView recyclerView) {
+        this.recyclerView = recyclerView;
+        recyclerView.addOnScrollListener(this);
+        recyclerView.addOnChildAttachStateChangeListener(this);
+        requestUpdate();
+    }
+
+    public void detach() {
+        if (recyclerView != null) {
+            recyclerView.removeCallbacks(updateRunnable);
+            recyclerView.removeOnScrollListener(this);
+            recyclerView.removeOnChildAttachStateChangeListener(this);
+            recyclerView = null;
+        }
+        visibleSince.clear();
+        focusedTile = null;
+    }
+
+    /**
+     * Re-evaluate focus on the next frame, e.g. after a tile finished loading
+     */
+    public void requestUpdate() {
+        if (recyclerView != null) {
+            recyclerView.removeCallbacks(updateRunnable);
+            recyclerView.post(updateRunnable);
+        }
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        // Only tracks visibility while moving; tiles are touched once they settle
+        update();
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            update();
+        }
+    }
+
+    @Override
+    public void onChildViewAttachedToWindow(@NonNull View view) {
+        requestUpdate();
+    }
+
+    @Override
+    public void onChildViewDetachedFromWindow(@NonNull View view) {
+        if (recyclerView == null) {
+            return;
+        }
+        RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(view);
+        visibleSince.remove(holder);
+        if (holder == focusedTile) {
+            focusedTile = null;
+            requestUpdate();
+        }
+    }
+
+    private void update() {
+        if (recyclerView == null) {
+            return;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        boolean idle = recyclerView.getScrollState() == RecyclerView.SCROLL_STATE_IDLE;
+        int viewportHeight = recyclerView.getHeight();
+        List<LiveTile> settled = new ArrayList<>();
+        LiveTile mostVisible = null;
+        float bestFraction = 0;
+        boolean awaitingDwell = false;
+        for (int i = 0; i < recyclerView.getChildCount(); i++) {
+            View child = recyclerView.getChildAt(i);
+            RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(child);
+            if (!(holder instanceof LiveTile) || child.getHeight() == 0) {
+                continue;
+            }
+            LiveTile tile = (LiveTile) holder;
+            int visibleHeight = Math.min(child.getBottom(), viewportHeight) - Math.max(child.getTop(), 0);
+            float fraction = Math.max(0, visibleHeight) / (float) child.getHeight();
+
+            if (fraction == 0) {
+                // Laid out but off screen
+                visibleSince.remove(tile);
+                tile.cancelLoad();
+                continue;
+            }
+            if (fraction < SETTLE_VISIBLE_FRACTION) {
+                visibleSince.remove(tile);
+            } else if (!visibleSince.containsKey(tile)) {
+                visibleSince.put(tile, now);
+            }
+
+            Long since = visibleSince.get(tile);
+            if (idle || (since != null && now - since >= SETTLE_DWELL_MS)) {
+                settled.add(tile);
+                if (fraction > bestFraction) {
+                    bestFraction = fraction;
+                    mostVisible = tile;
+                }
+            } else if (since != null) {
+                awaitingDwell = true;
+            }
+        }
+
+        if (mostVisible != null && mostVisible != focusedTile) {
+            Log.d(TAG, "Live tile changed, visible fraction " + bestFraction);
+            focusedTile = mostVisible;
+        }
+
+        boolean retry = false;
+        for (LiveTile tile : settled) {
+            if (tile == focusedTile) {
+                tile.goLive();
+            } else if (!tile.freeze()) {
+                retry = true;
+            }
+        }
+
+        recyclerView.removeCallbacks(updateRunnable);
+        if (awaitingDwell) {
+            // Check again once tiles that just came into view have stayed long enough
+            recyclerView.postDelayed(updateRunnable, SETTLE_DWELL_MS);
+        } else if (retry) {
+            recyclerView.postDelayed(updateRunnable, RETRY_DELAY_MS);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.app.zecara.util;
+
+import android.app.ActivityManager;
+import android.app.ApplicationExitInfo;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sizes the WebView pool for the device and adapts it to memory pressure.
+ * The base size comes from the app's memory class and the low-RAM flag.
+ * Trim callbacks shrink the pool and drop warm caches one step at a time,
+ * and the pool grows back a step at a time once no new trim arrives.
+ * Every resize is kept in a persisted history so it can be matched
+ * against low-memory kills reported on the next launch.
+ */
+public class MemoryGovernor implements ComponentCallbacks2 {
+    private static final String TAG = "MemoryGovernor";
+    private static final String PREFS_NAME = "memory_governor";
+    private static final String KEY_HISTORY = "resize_history";
+    private static final int MAX_HISTORY = 20;
+    private static final long RECOVERY_DELAY_MS = 30 * 1000; // Quiet time before growing back one step
+
+    private static MemoryGovernor instance;
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable recoveryRunnable = this::recoverOneStep;
+    private final ArrayDeque<ResizeEvent> history = new ArrayDeque<>();
+    private final int basePoolSize;
+    private final int baseMaxPoolSize;
+    private WebViewPool webViewPool;
+    private Pressure pressure = Pressure.NONE;
+
+    /**
+     * Memory pressure steps, from no pressure to about to be killed
+     */
+    public enum Pressure {
+        NONE,
+        MODERATE, // Fewer idle WebViews
+        LOW,      // One idle WebView, fewer in total, warm caches dropped
+        CRITICAL  // No idle WebViews, minimum in total
+    }
+
+    private MemoryGovernor(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClass = activityManager != null ? activityManager.getMemoryClass() : 128;
+        boolean lowRam = activityManager != null && activityManager.isLowRamDevice();
+        if (lowRam || memoryClass <= 128) {
+            basePoolSize = 1;
+            baseMaxPoolSize = 3;
+        } else if (memoryClass <= 256) {
+            basePoolSize = 3;
+            baseMaxPoolSize = 5;
+        } else if (memoryClass <= 384) {
+            basePoolSize = 4;
+            baseMaxPoolSize = 6;
+        } else {
+            basePoolSize = 5;
+            baseMaxPoolSize = 8;
+        }
+        Log.i(TAG, "Memory class " + memoryClass + " MB, low RAM " + lowRam
+                + ": pool " + basePoolSize + "/" + baseMaxPoolSize);
+
+        logPreviousSession(activityManager);
+        this.context.registerComponentCallbacks(this);
+    }
+
+    public static synchronized MemoryGovernor getInstance(Context context) {
+        if (instance == null) {
+            instance = new MemoryGovernor(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Number of idle WebViews to keep for the current pressure level
+     */
+    public synchronized int getPoolSize() {
+        switch (pressure) {
+            case MODERATE:
+                return Math.max(1, basePoolSize / 2);
+            case LOW:
+                return Math.min(1, basePoolSize);
+            case CRITICAL:
+                return 0;
+            default:
+                return basePoolSize;
+        }
+    }
+
+    /**
+     * Maximum number of WebViews alive at once for the current pressure level
+     */
+    public synchronized int getMaxPoolSize() {
+        switch (pressure) {
+            case LOW:
+                return Math.max(2, baseMaxPoolSize * 2 / 3);
+            case CRITICAL:
+                return Math.min(2, baseMaxPoolSize);
+            default:
+                return baseMaxPoolSize;
+        }
+    }
+
+    public synchronized Pressure getPressure() {
+        return pressure;
+    }
+
+    /**
+     * Let the governor resize this pool as pressure changes
+     */
+    void setWebViewPool(WebViewPool webViewPool) {
+        this.webViewPool = webViewPool;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        Pressure target;
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            target = Pressure.CRITICAL;
+        } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+            target = Pressure.LOW;
+        } else if (level == TRIM_MEMORY_UI_HIDDEN) {
+            // A plain app switch: hosts pause their WebViews in onPause, and the idle
+            // WebViews and caches are kept so coming back is a warm resume
+            Log.d(TAG, "UI hidden, keeping pool and caches");
+            return;
+        } else if (level == TRIM_MEMORY_RUNNING_MODERATE) {
+            target = Pressure.MODERATE;
+        } else {
+            return;
+        }
+        Log.d(TAG, "onTrimMemory(" + level + ")");
+        raisePressure(target, "trim level " + level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        raisePressure(Pressure.CRITICAL, "low memory");
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    private void raisePressure(Pressure target, String reason) {
+        // Any trim restarts the quiet period before growing back
+        mainHandler.removeCallbacks(recoveryRunnable);
+        mainHandler.postDelayed(recoveryRunnable, RECOVERY_DELAY_MS);
+
+        synchronized (this) {
+            if (target.ordinal() <= pressure.ordinal()) {
+                return;
+            }
+        }
+        applyPressure(target, reason);
+    }
+
+    private void recoverOneStep() {
+        Pressure current = getPressure();
+        if (current == Pressure.NONE) {
+            return;
+        }
+        applyPressure(Pressure.values()[current.ordinal() - 1], "recovered");
+        if (getPressure() != Pressure.NONE) {
+            mainHandler.postDelayed(recoveryRunnable, RECOVERY_DELAY_MS);
+        }
+    }
+
+    private void applyPressure(Pressure target, String reason) {
+        int oldPoolSize;
+        int oldMaxPoolSize;
+        synchronized (this) {
+            oldPoolSize = getPoolSize();
+            oldMaxPoolSize = getMaxPoolSize();
+            pressure = target;
+        }
+
+        if (target.ordinal() >= Pressure.LOW.ordinal()) {
+            // Warm state that is cheap to rebuild when it is next needed
+            ProjectResourceServer.getInstance(context).closeAll();
+            ExtractionEngine.getInstance().trimBuffers();
+            AvatarLoader.getInstance(context).trimMemory();
+            StaticContent.trimSnapshots();
+        }
+
+        int poolSize = getPoolSize();
+        int maxPoolSize = getMaxPoolSize();
+        if (webViewPool != null) {
+            webViewPool.setLimits(poolSize, maxPoolSize);
+        }
+        recordResize(new ResizeEvent(System.currentTimeMillis(), target, reason,
+                oldPoolSize, oldMaxPoolSize, poolSize, maxPoolSize));
+    }
+
+    private void recordResize(ResizeEvent event) {
+        Log.i(TAG, event.toString());
+        StringBuilder serialized = new StringBuilder();
+        synchronized (history) {
+            history.addLast(event);
+            if (history.size() > MAX_HISTORY) {
+                history.removeFirst();
+            }
+            for (ResizeEvent e : history) {
+                serialized.append(e.serialize()).append('\n');
+            }
+        }
+        // Persisted so the sequence leading up to a kill is still readable on the next launch
+        prefs.edit().putString(KEY_HISTORY, serialized.toString()).apply();
+    }
+
+    /**
+     * Resizes made in this process, oldest first
+     */
+    public List<ResizeEvent> getResizeHistory() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    /**
+     * Log the previous process's resize history next to why it died, when the OS reports it
+     */
+    private void logPreviousSession(ActivityManager activityManager) {
+        String previous = prefs.getString(KEY_HISTORY, "");
+        prefs.edit().remove(KEY_HISTORY).apply();
+        if (previous.isEmpty()) {
+            return;
+        }
+
+        String exitReason = "unknown";
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && activityManager != null) {
+            List<ApplicationExitInfo> exits =
+                    activityManager.getHistoricalProcessExitReasons(context.getPackageName(), 0, 1);
+            if (!exits.isEmpty()) {
+                ApplicationExitInfo exit = exits.get(0);
+                exitReason = exit.getReason() == ApplicationExitInfo.REASON_LOW_MEMORY
+                        ? "low memory kill" : "reason " + exit.getReason();
+                exitReason += " at " + exit.getTimestamp() + ", pss " + exit.getPss() + " KB";
+            }
+        }
+        Log.i(TAG, "Previous session ended (" + exitReason + ") after pool resizes:\n" + previous);
+    }
+
+    /**
+     * One change of the pool limits
+     */
+    public static class ResizeEvent {
+        public final long timestamp;
+        public final Pressure pressure;
+        public final String reason;
+        public final int oldPoolSize;
+        public final int oldMaxPoolSize;
+        public final int newPoolSize;
+        public final int newMaxPoolSize;
+
+        ResizeEvent(long timestamp, Pressure pressure, String reason, int oldPoolSize,
+                    int oldMaxPoolSize, int newPoolSize, int newMaxPoolSize) {
+            this.timestamp = timestamp;
+            this.pressure = pressure;
+            this.reason = reason;
+            this.oldPoolSize = oldPoolSize;
+            this.oldMaxPoolSize = oldMaxPoolSize;
+            this.newPoolSize = newPoolSize;
+            this.newMaxPoolSize = newMaxPoolSize;
+        }
+
+        String serialize() {
+            return timestamp + "," + pressure + "," + oldPoolSize + "/" + oldMaxPoolSize
+                    + "->" + newPoolSize + "/" + newMaxPoolSize + "," + reason;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Pool resized to %d idle / %d max (was %d / %d), pressure %s, %s",
+                    newPoolSize, newMaxPoolSize, oldPoolSize, oldMaxPoolSize, pressure, reason);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.app.zecara.util;
+
+import android.os.SystemClock;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import androidx.core.content.ContextCompat;
+
+import com.app.zecara.R;
+
+/**
+ * Native loading/error overlay drawn above a WebView (layout view_progress_overlay).
+ * Replaces rendering a throwaway HTML page into the WebView for every progress tick;
+ * progress updates are rate-limited so a fast download does not flood the UI thread.
+ */
+public class ProgressOverlay {
+    private static final long MIN_UPDATE_INTERVAL_MS = 100;
+
+    private final View root;
+    private final TextView icon;
+    private final ProgressBar progressBar;
+    private final TextView message;
+    private int lastPercentage = -1;
+    private long lastUpdateTime;
+
+    /**
+     * @param root The included loadingOverlay view
+     */
+    public ProgressOverlay(View root) {
+        this.root = root;
+        this.icon = root.findViewById(R.id.loadingIcon);
+        this.progressBar = root.findViewById(R.id.loadingProgress);
+        this.message = root.findViewById(R.id.loadingMessage);
+    }
+
+    /**
+     * Show an indeterminate loading state
+     */
+    public void showMessage(String text) {
+        resetProgress();
+        icon.setText("📦");
+        progressBar.setVisibility(View.VISIBLE);
+        progressBar.setIndeterminate(true);
+        message.setTextColor(ContextCompat.getColor(root.getContext(), R.color.overlay_text));
+        message.setText(text);
+        root.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Show download progress. Repeated or too frequent updates are dropped.
+     */
+    public void showProgress(int percentage) {
+        long now = SystemClock.uptimeMillis();
+        if (percentage == lastPercentage
+                || (percentage < 100 && now - lastUpdateTime < MIN_UPDATE_INTERVAL_MS)) {
+            return;
+        }
+        if (root.getVisibility() != View.VISIBLE || progressBar.isIndeterminate()) {
+            showMessage("");
+            progressBar.setIndeterminate(false);
+        }
+        lastPercentage = percentage;
+        lastUpdateTime = now;
+        progressBar.setProgress(percentage);
+        message.setText("Downloading... " + percentage + "%");
+    }
+
+    /**
+     * Show an error in place of the content
+     */
+    public void showError(String error) {
+        resetProgress();
+        icon.setText("⚠️");
+        progressBar.setVisibility(View.GONE);
+        message.setTextColor(ContextCompat.getColor(root.getContext(), R.color.overlay_error));
+        message.setText("Error: " + error);
+        root.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Hide the overlay, revealing the WebView underneath
+     */
+    public void hide() {
+        resetProgress();
+        root.setVisibility(View.GONE);
+    }
+
+    public boolean isShowing() {
+        return root.getVisibility() == View.VISIBLE;
+    }
+
+    private void resetProgress() {
+        lastPercentage = -1;
+        lastUpdateTime = 0;
+    }
+}
@@ -0,0 +1,547 @@
+package com.app.zecara.util;
+
+import android.content.Context;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.StructStat;
+import android.util.Log;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Content-addressed store for files shared between HTML5 projects.
+ * Every file is kept once under html5_blobs/<sha256> and project directories
+ * hard-link to it, so WebViews can still load projects through plain file:// URLs.
+ * A blob's link count is its reference count: checking, linking and releasing a
+ * blob happen under a per-hash lock shared by every store instance.
+ */
+public class ProjectBlobStore {
+    private static final String TAG = "ProjectBlobStore";
+    private static final String BLOBS_DIR = "html5_blobs";
+    private static final String TEMP_DIR = "tmp";
+    public static final String MANIFEST_FILE = ".manifest";
+    public static final String COMPRESSED_SUFFIX = ".gz";
+    private static final String CRC_INDEX_FILE = "crc_index";
+    private static final int LOCK_STRIPES = 32;
+
+    // Striped by hash so unrelated blobs never wait on each other
+    private static final Object[] locks = new Object[LOCK_STRIPES];
+    // ZIP entry CRC and size to the blob already holding that content, loaded on first use
+    private static final Object crcIndexLock = new Object();
+    private static Map<String, String> crcIndex;
+
+    static {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private final File blobsDir;
+    private final File tempDir;
+
+    public ProjectBlobStore(Context context) {
+        this.blobsDir = new File(context.getFilesDir(), BLOBS_DIR);
+        this.tempDir = new File(blobsDir, TEMP_DIR);
+    }
+
+    /**
+     * Manifest entry describing one file of a project
+     */
+    public static class ManifestEntry {
+        public final String path;
+        public final String hash;
+        public final long size;
+        /** Bytes storing this entry added on disk; 0 when it linked a blob that was already stored */
+        public final long storedBytes;
+
+        public ManifestEntry(String path, String hash, long size) {
+            this(path, hash, size, 0);
+        }
+
+        ManifestEntry(String path, String hash, long size, long storedBytes) {
+            this.path = path;
+            this.hash = hash;
+            this.size = size;
+            this.storedBytes = storedBytes;
+        }
+    }
+
+    /**
+     * Store the bytes read from the stream as a blob and link them at the target path.
+     * If an identical blob already exists the new copy is discarded.
+     * @param buffer Scratch buffer used for copying, reused across entries by the caller
+     * @return Manifest entry for the stored file
+     */
+    public ManifestEntry storeEntry(InputStream in, String path, File target, byte[] buffer) throws IOException {
+        return storeEntry(in, path, target, buffer, false);
+    }
+
+    /**
+     * Store an entry, optionally gzip-compressed at rest.
+     * Compressed entries are keyed by the hash of their uncompressed content plus
+     * {@link #COMPRESSED_SUFFIX}, and linked at the target path with the same suffix.
+     * The returned size is always the uncompressed size.
+     */
+    public ManifestEntry storeEntry(InputStream in, String path, File target, byte[] buffer,
+                                    boolean compress) throws IOException {
+        if (!tempDir.exists()) {
+            tempDir.mkdirs();
+        }
+
+        MessageDigest digest = newDigest();
+        File tempFile = File.createTempFile("blob", null, tempDir);
+        long size = 0;
+        OutputStream fos = new FileOutputStream(tempFile);
+        if (compress) {
+            fos = new GZIPOutputStream(fos, buffer.length);
+        }
+        try {
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, length);
+                fos.write(buffer, 0, length);
+                size += length;
+            }
+        } catch (IOException e) {
+            fos.close();
+            tempFile.delete();
+            throw e;
+        }
+        fos.close();
+
+        String hash = toHex(digest.digest());
+        if (compress) {
+            hash += COMPRESSED_SUFFIX;
+            path += COMPRESSED_SUFFIX;
+            target = new File(target.getPath() + COMPRESSED_SUFFIX);
+        }
+        File blob = getBlobFile(hash);
+        long storedBytes;
+        synchronized (lockFor(hash)) {
+            if (blob.exists()) {
+                // Identical content is already stored, drop the duplicate
+                tempFile.delete();
+                storedBytes = linkOrCopy(blob, target);
+            } else {
+                blob.getParentFile().mkdirs();
+                if (!tempFile.renameTo(blob)) {
+                    tempFile.delete();
+                    throw new IOException("Could not store blob " + hash);
+                }
+                if (tryLink(blob, target)) {
+                    storedBytes = blob.length();
+                } else if (blob.renameTo(target)) {
+                    // No hard links here: keep the file as a private copy, outside the store,
+                    // so the blob's link count still only counts real links
+                    storedBytes = target.length();
+                } else {
+                    blob.delete();
+                    throw new IOException("Could not link blob " + hash);
+                }
+            }
+        }
+        return new ManifestEntry(path, hash, size, storedBytes);
+    }
+
+    /**
+     * Store the current entry of a ZIP stream. When the entry's local header carries
+     * its CRC and size and a blob with that content was stored before, the blob is
+     * linked and the entry is only verified, not written to disk again.
+     */
+    public ManifestEntry storeZipEntry(ZipInputStream zis, ZipEntry entry, String path, File target,
+                                       byte[] buffer, boolean compress) throws IOException {
+        long crc = entry.getCrc();
+        long size = entry.getSize();
+        if (crc != -1 && size != -1) {
+            String hash = lookupCrc(crc, size, compress);
+            ManifestEntry linked = hash != null
+                    ? linkKnownEntry(zis, hash, path, target, buffer, compress, crc, size) : null;
+            if (linked != null) {
+                return linked;
+            }
+        }
+
+        ManifestEntry stored = storeEntry(zis, path, target, buffer, compress);
+        // Streamed archives may only give the CRC in the data descriptor, which has been read by now
+        if (entry.getCrc() != -1 && entry.getSize() != -1) {
+            recordCrc(entry.getCrc(), entry.getSize(), compress, stored.hash);
+        }
+        return stored;
+    }
+
+    /**
+     * Link the blob the CRC index points at, then check the entry really has its content
+     * @return The manifest entry, or null if the blob is no longer stored
+     */
+    private ManifestEntry linkKnownEntry(InputStream in, String hash, String path, File target, byte[] buffer,
+                                         boolean compress, long crc, long size) throws IOException {
+        if (compress) {
+            path += COMPRESSED_SUFFIX;
+            target = new File(target.getPath() + COMPRESSED_SUFFIX);
+        }
+        File blob = getBlobFile(hash);
+        long storedBytes;
+        synchronized (lockFor(hash)) {
+            if (!blob.exists()) {
+                forgetCrc(crc, size, compress);
+                return null;
+            }
+            // The link pins the blob while the entry is verified
+            storedBytes = linkOrCopy(blob, target);
+        }
+
+        MessageDigest digest = newDigest();
+        int length;
+        while ((length = in.read(buffer)) > 0) {
+            digest.update(buffer, 0, length);
+        }
+        String actual = toHex(digest.digest()) + (compress ? COMPRESSED_SUFFIX : "");
+        if (!actual.equals(hash)) {
+            // CRC collision; the entry has been consumed, so fail and let the next download store it
+            target.delete();
+            forgetCrc(crc, size, compress);
+            throw new IOException("Content of " + path + " does not match blob " + hash);
+        }
+        return new ManifestEntry(path, hash, size, storedBytes);
+    }
+
+    /**
+     * Link an already stored blob at the target path
+     * @return false if no blob with this hash is stored
+     */
+    public boolean linkExisting(String hash, File target) throws IOException {
+        File blob = getBlobFile(hash);
+        synchronized (lockFor(hash)) {
+            if (!blob.exists()) {
+                return false;
+            }
+            linkOrCopy(blob, target);
+            return true;
+        }
+    }
+
+    /**
+     * Hard-link a blob into a project directory, copying if the filesystem refuses links.
+     * Must hold the blob's lock.
+     * @return Bytes the private copy occupies, 0 if the blob was linked
+     */
+    private long linkOrCopy(File blob, File target) throws IOException {
+        if (tryLink(blob, target)) {
+            return 0;
+        }
+        copyFile(blob, target);
+        return target.length();
+    }
+
+    private boolean tryLink(File blob, File target) {
+        if (target.exists()) {
+            target.delete();
+        }
+        try {
+            Os.link(blob.getAbsolutePath(), target.getAbsolutePath());
+            return true;
+        } catch (ErrnoException e) {
+            Log.w(TAG, "Hard link failed, keeping a private copy instead: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Write the manifest describing every file of a project
+     */
+    public void writeManifest(File projectDir, Collection<ManifestEntry> entries) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(new File(projectDir, MANIFEST_FILE)));
+        try {
+            for (ManifestEntry entry : entries) {
+                writer.write(entry.hash + "\t" + entry.size + "\t" + entry.path);
+                writer.newLine();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Read a project's manifest, keyed by relative path
+     * @return Manifest entries, empty if the project has no manifest
+     */
+    public Map<String, ManifestEntry> readManifest(File projectDir) {
+        Map<String, ManifestEntry> entries = new LinkedHashMap<>();
+        File manifestFile = new File(projectDir, MANIFEST_FILE);
+        if (!manifestFile.exists()) {
+            return entries;
+        }
+
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(manifestFile));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t", 3);
+                    if (parts.length == 3) {
+                        entries.put(parts[2], new ManifestEntry(parts[2], parts[0], Long.parseLong(parts[1])));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | NumberFormatException e) {
+            Log.w(TAG, "Could not read manifest in " + projectDir + ": " + e.getMessage());
+        }
+        return entries;
+    }
+
+    /**
+     * Delete a project directory, then the blobs no other project links to
+     * @param entries The project's manifest
+     * @return Bytes freed, counting private copies kept where links were not possible
+     */
+    public long releaseProject(File projectDir, Collection<ManifestEntry> entries) {
+        long freed = 0;
+        Set<String> hashes = new HashSet<>();
+        for (ManifestEntry entry : entries) {
+            hashes.add(entry.hash);
+            try {
+                StructStat stat = Os.stat(new File(projectDir, entry.path).getAbsolutePath());
+                if (stat.st_nlink <= 1) {
+                    freed += stat.st_size;
+                }
+            } catch (ErrnoException e) {
+                // File already gone
+            }
+        }
+        deleteRecursive(projectDir);
+        return freed + releaseBlobs(hashes);
+    }
+
+    /**
+     * Delete blobs that are no longer linked from any project
+     * @param hashes Blobs referenced by a project that was just removed
+     * @return Bytes freed
+     */
+    public long releaseBlobs(Collection<String> hashes) {
+        long freed = 0;
+        for (String hash : new HashSet<>(hashes)) {
+            File blob = getBlobFile(hash);
+            synchronized (lockFor(hash)) {
+                try {
+                    StructStat stat = Os.stat(blob.getAbsolutePath());
+                    if (stat.st_nlink <= 1) {
+                        freed += stat.st_size;
+                        blob.delete();
+                    }
+                } catch (ErrnoException e) {
+                    // Blob already gone
+                }
+            }
+        }
+        if (freed > 0) {
+            Log.d(TAG, "Released " + freed + " bytes of unreferenced blobs");
+        }
+        return freed;
+    }
+
+    /**
+     * Remove every stored blob
+     */
+    public void clear() {
+        synchronized (crcIndexLock) {
+            deleteRecursive(blobsDir);
+            crcIndex = null;
+        }
+    }
+
+    /**
+     * Bytes actually occupied on disk by the given directories, counting each inode once
+     */
+    public long getPhysicalSizeBytes(File projectsDir) {
+        Set<Long> seenInodes = new HashSet<>();
+        return sumUniqueInodes(projectsDir, seenInodes) + sumUniqueInodes(blobsDir, seenInodes);
+    }
+
+    private long sumUniqueInodes(File dir, Set<Long> seenInodes) {
+        long size = 0;
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                size += sumUniqueInodes(file, seenInodes);
+            } else {
+                try {
+                    StructStat stat = Os.stat(file.getAbsolutePath());
+                    if (seenInodes.add(stat.st_ino)) {
+                        size += stat.st_size;
+                    }
+                } catch (ErrnoException e) {
+                    size += file.length();
+                }
+            }
+        }
+        return size;
+    }
+
+    public File getBlobFile(String hash) {
+        return new File(blobsDir, hash.substring(0, 2) + "/" + hash);
+    }
+
+    private static Object lockFor(String hash) {
+        return locks[(hash.hashCode() & 0x7fffffff) % locks.length];
+    }
+
+    private static String crcKey(long crc, long size, boolean compress) {
+        return Long.toHexString(crc) + ":" + size + (compress ? COMPRESSED_SUFFIX : "");
+    }
+
+    private String lookupCrc(long crc, long size, boolean compress) {
+        synchronized (crcIndexLock) {
+            return loadCrcIndex().get(crcKey(crc, size, compress));
+        }
+    }
+
+    private void recordCrc(long crc, long size, boolean compress, String hash) {
+        String key = crcKey(crc, size, compress);
+        synchronized (crcIndexLock) {
+            if (hash.equals(loadCrcIndex().put(key, hash))) {
+                return;
+            }
+            try {
+                blobsDir.mkdirs();
+                BufferedWriter writer = new BufferedWriter(new FileWriter(new File(blobsDir, CRC_INDEX_FILE), true));
+                try {
+                    writer.write(key + "\t" + hash);
+                    writer.newLine();
+                } finally {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Could not update CRC index: " + e.getMessage());
+            }
+        }
+    }
+
+    private void forgetCrc(long crc, long size, boolean compress) {
+        synchronized (crcIndexLock) {
+            loadCrcIndex().remove(crcKey(crc, size, compress));
+            writeCrcIndex();
+        }
+    }
+
+    /**
+     * Must hold crcIndexLock. Entries whose blob has since been released are dropped.
+     */
+    private Map<String, String> loadCrcIndex() {
+        if (crcIndex != null) {
+            return crcIndex;
+        }
+        crcIndex = new HashMap<>();
+        File indexFile = new File(blobsDir, CRC_INDEX_FILE);
+        if (!indexFile.exists()) {
+            return crcIndex;
+        }
+        boolean stale = false;
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(indexFile));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t", 2);
+                    if (parts.length == 2) {
+                        crcIndex.put(parts[0], parts[1]);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read CRC index: " + e.getMessage());
+        }
+        for (Iterator<String> it = crcIndex.values().iterator(); it.hasNext(); ) {
+            if (!getBlobFile(it.next()).exists()) {
+                it.remove();
+                stale = true;
+            }
+        }
+        if (stale) {
+            writeCrcIndex();
+        }
+        Log.d(TAG, "Loaded CRC index with " + crcIndex.size() + " entries");
+        return crcIndex;
+    }
+
+    /**
+     * Must hold crcIndexLock
+     */
+    private void writeCrcIndex() {
+        File indexFile = new File(blobsDir, CRC_INDEX_FILE);
+        try {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(indexFile));
+            try {
+                for (Map.Entry<String, String> entry : crcIndex.entrySet()) {
+                    writer.write(entry.getKey() + "\t" + entry.getValue());
+                    writer.newLine();
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write CRC index: " + e.getMessage());
+        }
+    }
+
+    private static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    static void copyFile(File source, File target) throws IOException {
+        FileInputStream fis = new FileInputStream(source);
+        FileOutputStream fos = new FileOutputStream(target);
+        try {
+            byte[] buffer = new byte[1024];
+            int length;
+            while ((length = fis.read(buffer)) > 0) {
+                fos.write(buffer, 0, length);
+            }
+        } finally {
+            fis.close();
+            fos.close();
+        }
+    }
+
+    private static void deleteRecursive(File file) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    deleteRecursive(child);
+                }
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,198 @@
+package com.app.zecara.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent index of cached HTML5 projects.
+ * Tracks each project's size and last access time so the cache size is
+ * known without walking the filesystem, and so projects can be evicted
+ * least-recently-opened first when the cache exceeds its byte budget.
+ */
+public class ProjectCacheIndex {
+    private static final String TAG = "ProjectCacheIndex";
+    private static final String PREFS_NAME = "html5_cache_index";
+    private static final String KEY_PROJECT_PREFIX = "project:";
+    private static final String KEY_PHYSICAL_BYTES = "physical_bytes";
+    private static final String KEY_BUDGET_BYTES = "budget_bytes";
+    private static final String KEY_INITIALIZED = "initialized";
+    private static final long DEFAULT_BUDGET_BYTES = 200L * 1024 * 1024;
+    private static final long TOUCH_PERSIST_INTERVAL_MS = 60 * 1000; // Avoid a prefs write on every bind
+
+    private static ProjectCacheIndex instance;
+    private final SharedPreferences prefs;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long logicalBytes;
+    private long physicalBytes;
+    private long budgetBytes;
+
+    /**
+     * Index record for one cached project
+     */
+    public static class Entry {
+        public final String projectId;
+        public final long sizeBytes;
+        public long lastAccess;
+
+        Entry(String projectId, long sizeBytes, long lastAccess) {
+            this.projectId = projectId;
+            this.sizeBytes = sizeBytes;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private ProjectCacheIndex(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        load();
+    }
+
+    public static synchronized ProjectCacheIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new ProjectCacheIndex(context);
+        }
+        return instance;
+    }
+
+    private void load() {
+        for (Map.Entry<String, ?> pref : prefs.getAll().entrySet()) {
+            if (!pref.getKey().startsWith(KEY_PROJECT_PREFIX) || !(pref.getValue() instanceof String)) {
+                continue;
+            }
+            String projectId = pref.getKey().substring(KEY_PROJECT_PREFIX.length());
+            String[] parts = ((String) pref.getValue()).split(",");
+            try {
+                Entry entry = new Entry(projectId, Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                entries.put(projectId, entry);
+                logicalBytes += entry.sizeBytes;
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                Log.w(TAG, "Dropping corrupt index entry for: " + projectId);
+            }
+        }
+        physicalBytes = prefs.getLong(KEY_PHYSICAL_BYTES, 0);
+        budgetBytes = prefs.getLong(KEY_BUDGET_BYTES, DEFAULT_BUDGET_BYTES);
+        Log.d(TAG, "Loaded cache index with " + entries.size() + " projects, " + logicalBytes + " bytes");
+    }
+
+    /**
+     * Whether the index has been populated at least once (false on first run after upgrade)
+     */
+    public synchronized boolean isInitialized() {
+        return prefs.getBoolean(KEY_INITIALIZED, false);
+    }
+
+    public synchronized void markInitialized() {
+        prefs.edit().putBoolean(KEY_INITIALIZED, true).apply();
+    }
+
+    /**
+     * Record a newly installed project
+     * @param sizeBytes Logical size of the project's files
+     * @param newPhysicalBytes Bytes the install actually added to disk; negative if replacing
+     *                         an older version freed more than the new one added
+     */
+    public synchronized void recordInstall(String projectId, long sizeBytes, long newPhysicalBytes) {
+        Entry previous = entries.remove(projectId);
+        if (previous != null) {
+            logicalBytes -= previous.sizeBytes;
+        }
+        Entry entry = new Entry(projectId, sizeBytes, System.currentTimeMillis());
+        entries.put(projectId, entry);
+        logicalBytes += sizeBytes;
+        physicalBytes = Math.max(0, physicalBytes + newPhysicalBytes);
+        prefs.edit()
+                .putString(KEY_PROJECT_PREFIX + projectId, encode(entry))
+                .putLong(KEY_PHYSICAL_BYTES, physicalBytes)
+                .apply();
+    }
+
+    /**
+     * Mark a project as just opened
+     */
+    public synchronized void touch(String projectId) {
+        Entry entry = entries.get(projectId);
+        if (entry == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean persist = now - entry.lastAccess > TOUCH_PERSIST_INTERVAL_MS;
+        entry.lastAccess = now;
+        if (persist) {
+            prefs.edit().putString(KEY_PROJECT_PREFIX + projectId, encode(entry)).apply();
+        }
+    }
+
+    /**
+     * Remove a project from the index
+     * @param freedPhysicalBytes Bytes actually released from disk by the deletion
+     */
+    public synchronized void remove(String projectId, long freedPhysicalBytes) {
+        Entry entry = entries.remove(projectId);
+        if (entry != null) {
+            logicalBytes -= entry.sizeBytes;
+        }
+        physicalBytes = Math.max(0, physicalBytes - freedPhysicalBytes);
+        prefs.edit()
+                .remove(KEY_PROJECT_PREFIX + projectId)
+                .putLong(KEY_PHYSICAL_BYTES, physicalBytes)
+                .apply();
+    }
+
+    /**
+     * Forget every project, e.g. after the whole cache was cleared
+     */
+    public synchronized void clear() {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String projectId : entries.keySet()) {
+            editor.remove(KEY_PROJECT_PREFIX + projectId);
+        }
+        entries.clear();
+        logicalBytes = 0;
+        physicalBytes = 0;
+        editor.putLong(KEY_PHYSICAL_BYTES, 0).apply();
+    }
+
+    /**
+     * Projects ordered from least to most recently accessed
+     */
+    public synchronized List<Entry> getEvictionOrder() {
+        List<Entry> ordered = new ArrayList<>(entries.values());
+        Collections.sort(ordered, (a, b) -> Long.compare(a.lastAccess, b.lastAccess));
+        return ordered;
+    }
+
+    public synchronized long getLogicalBytes() {
+        return logicalBytes;
+    }
+
+    public synchronized long getPhysicalBytes() {
+        return physicalBytes;
+    }
+
+    /**
+     * Replace the physical byte total, used when the index is rebuilt from disk
+     */
+    public synchronized void setPhysicalBytes(long physicalBytes) {
+        this.physicalBytes = physicalBytes;
+        prefs.edit().putLong(KEY_PHYSICAL_BYTES, physicalBytes).apply();
+    }
+
+    public synchronized long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        prefs.edit().putLong(KEY_BUDGET_BYTES, budgetBytes).apply();
+    }
+
+    private static String encode(Entry entry) {
+        return entry.sizeBytes + "," + entry.lastAccess;
+    }
+}
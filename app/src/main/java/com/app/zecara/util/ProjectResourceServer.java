@@ -0,0 +1,331 @@
+package com.app.zecara.util;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.MimeTypeMap;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Serves HTML5 project resources to WebViews from a virtual origin.
+ * Projects stored as a single archive are read entry by entry on demand,
+ * so they never need to be extracted to individual files. Extracted projects
+ * whose text assets are compressed at rest are inflated as they are streamed.
+ *
+ * URLs have the form https://html5.zecara.local/<projectId>/<path>
+ * Shared resources of the inline HTML template live under {@link HtmlTemplate#SHARED_DIR}.
+ */
+public class ProjectResourceServer {
+    private static final String TAG = "ProjectResourceServer";
+    public static final String HOST = "html5.zecara.local";
+    public static final String ORIGIN = "https://" + HOST + "/";
+    static final String ARCHIVES_DIR = "html5_archives";
+    static final String PROJECTS_DIR = "html5_projects";
+    private static final int MAX_OPEN_ARCHIVES = 8; // Open ZipFile handles kept for random access
+
+    private static ProjectResourceServer instance;
+    private final Context context;
+    private final LinkedHashMap<String, ArchiveHandle> openArchives;
+
+    private ProjectResourceServer(Context context) {
+        this.context = context.getApplicationContext();
+        // Access-ordered so the least recently served archive is closed first
+        this.openArchives = new LinkedHashMap<>(MAX_OPEN_ARCHIVES, 0.75f, true);
+    }
+
+    public static synchronized ProjectResourceServer getInstance(Context context) {
+        if (instance == null) {
+            instance = new ProjectResourceServer(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Build the URL a WebView should load for a project's entry page
+     */
+    public static String getProjectUrl(String projectId) {
+        return ORIGIN + projectId + "/index.html";
+    }
+
+    public File getArchiveFile(String projectId) {
+        return new File(context.getFilesDir(), ARCHIVES_DIR + "/" + projectId + ".zip");
+    }
+
+    /**
+     * Handle a WebView request. Call from WebViewClient.shouldInterceptRequest,
+     * which runs on a WebView background thread.
+     * @return Response for virtual-origin requests, or null to let the WebView load normally
+     */
+    public WebResourceResponse intercept(WebResourceRequest request) {
+        Uri uri = request.getUrl();
+        if (!HOST.equals(uri.getHost())) {
+            return null;
+        }
+
+        List<String> segments = uri.getPathSegments();
+        if (segments.size() < 2) {
+            return notFound();
+        }
+
+        String projectId = segments.get(0);
+        String path = uri.getPath().substring(projectId.length() + 2);
+        if (path.contains("..")) {
+            return notFound();
+        }
+        if (HtmlTemplate.SHARED_DIR.equals(projectId)) {
+            return serveShared(path);
+        }
+
+        try {
+            InputStream data = openArchiveEntry(projectId, path);
+            if (data == null) {
+                data = openProjectFile(projectId, path);
+            }
+            if (data == null) {
+                return notFound();
+            }
+            return new WebResourceResponse(getMimeType(path), null, data);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to serve " + uri + ": " + e.getMessage());
+            return notFound();
+        }
+    }
+
+    /**
+     * Serve a template stylesheet. It never changes for a given app build,
+     * so it is marked cacheable for as long as possible.
+     */
+    private WebResourceResponse serveShared(String path) {
+        byte[] data = HtmlTemplate.getSharedResource(path);
+        if (data == null) {
+            return notFound();
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Cache-Control", "public, max-age=31536000, immutable");
+        return new WebResourceResponse(getMimeType(path), "UTF-8", 200, "OK",
+                headers, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Open a single entry of a project archive for reading.
+     * The archive stays open until the returned stream is closed.
+     * @return Entry stream, or null if the project or entry does not exist
+     */
+    private InputStream openArchiveEntry(String projectId, String path) throws IOException {
+        ArchiveHandle handle = acquireArchive(projectId);
+        if (handle == null) {
+            return null;
+        }
+        try {
+            ZipEntry entry = handle.zipFile.getEntry(path);
+            if (entry == null || entry.isDirectory()) {
+                releaseArchive(handle);
+                return null;
+            }
+            return new ArchiveEntryStream(handle, handle.zipFile.getInputStream(entry));
+        } catch (IOException | RuntimeException e) {
+            releaseArchive(handle);
+            throw e;
+        }
+    }
+
+    /**
+     * Open a file of an extracted project, decompressing it if it is stored gzipped
+     * @return File stream, or null if the file does not exist
+     */
+    private InputStream openProjectFile(String projectId, String path) throws IOException {
+        File projectDir = new File(context.getFilesDir(), PROJECTS_DIR + "/" + projectId);
+        File file = new File(projectDir, path);
+        File compressedFile = new File(projectDir, path + ProjectBlobStore.COMPRESSED_SUFFIX);
+        // An open stream survives the directory being swapped; the lookup must not fall between the renames
+        Html5ProjectManager.installLock.readLock().lock();
+        try {
+            if (file.isFile()) {
+                return new FileInputStream(file);
+            }
+            if (compressedFile.isFile()) {
+                return new GZIPInputStream(new BufferedInputStream(new FileInputStream(compressedFile)));
+            }
+            return null;
+        } finally {
+            Html5ProjectManager.installLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the open handle for a project archive and count one more user of it
+     * @return The handle, or null if the project has no archive
+     */
+    private synchronized ArchiveHandle acquireArchive(String projectId) throws IOException {
+        ArchiveHandle handle = openArchives.get(projectId);
+        if (handle == null) {
+            File archiveFile = getArchiveFile(projectId);
+            if (!archiveFile.exists()) {
+                return null;
+            }
+
+            // ZipFile reads the central directory once and seeks to entries on demand
+            handle = new ArchiveHandle(new ZipFile(archiveFile));
+            openArchives.put(projectId, handle);
+
+            if (openArchives.size() > MAX_OPEN_ARCHIVES) {
+                Iterator<Map.Entry<String, ArchiveHandle>> it = openArchives.entrySet().iterator();
+                ArchiveHandle eldest = it.next().getValue();
+                it.remove();
+                retire(eldest);
+            }
+        }
+        handle.users++;
+        return handle;
+    }
+
+    private synchronized void releaseArchive(ArchiveHandle handle) {
+        handle.users--;
+        if (handle.retired && handle.users == 0) {
+            closeQuietly(handle.zipFile);
+        }
+    }
+
+    /**
+     * Stop handing out a handle; it is closed now, or once its last entry stream is closed
+     */
+    private void retire(ArchiveHandle handle) {
+        handle.retired = true;
+        if (handle.users == 0) {
+            closeQuietly(handle.zipFile);
+        }
+    }
+
+    /**
+     * Whether a response is currently streaming from the project's archive
+     */
+    public synchronized boolean isArchiveInUse(String projectId) {
+        // Iterate rather than get(), which would count as an access in the LRU order
+        for (Map.Entry<String, ArchiveHandle> entry : openArchives.entrySet()) {
+            if (entry.getKey().equals(projectId)) {
+                return entry.getValue().users > 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Close the handle for a project archive, e.g. before it is deleted or replaced.
+     * Responses still streaming from it finish first.
+     */
+    public synchronized void closeArchive(String projectId) {
+        ArchiveHandle handle = openArchives.remove(projectId);
+        if (handle != null) {
+            retire(handle);
+        }
+    }
+
+    /**
+     * Close every open archive handle that is not serving a response; busy
+     * handles close as soon as their responses finish
+     */
+    public synchronized void closeAll() {
+        for (ArchiveHandle handle : openArchives.values()) {
+            retire(handle);
+        }
+        openArchives.clear();
+    }
+
+    static String getMimeType(String path) {
+        String extension = MimeTypeMap.getFileExtensionFromUrl(path);
+        if (extension != null) {
+            extension = extension.toLowerCase();
+            switch (extension) {
+                case "html":
+                case "htm":
+                    return "text/html";
+                case "js":
+                case "mjs":
+                    return "application/javascript";
+                case "css":
+                    return "text/css";
+                case "json":
+                    return "application/json";
+                case "svg":
+                    return "image/svg+xml";
+                case "wasm":
+                    return "application/wasm";
+            }
+            String mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension);
+            if (mimeType != null) {
+                return mimeType;
+            }
+        }
+        return "application/octet-stream";
+    }
+
+    private static WebResourceResponse notFound() {
+        return new WebResourceResponse("text/plain", "UTF-8", 404, "Not Found",
+                Collections.emptyMap(), new ByteArrayInputStream(new byte[0]));
+    }
+
+    /**
+     * An open archive and the number of entry streams currently reading from it
+     */
+    private static class ArchiveHandle {
+        final ZipFile zipFile;
+        int users;
+        boolean retired; // No longer in openArchives; close when users reaches 0
+
+        ArchiveHandle(ZipFile zipFile) {
+            this.zipFile = zipFile;
+        }
+    }
+
+    /**
+     * Entry stream that keeps its archive open until the WebView closes it
+     */
+    private class ArchiveEntryStream extends FilterInputStream {
+        private final ArchiveHandle handle;
+        private boolean closed;
+
+        ArchiveEntryStream(ArchiveHandle handle, InputStream in) {
+            super(in);
+            this.handle = handle;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                releaseArchive(handle);
+            }
+        }
+    }
+
+    private static void closeQuietly(ZipFile zipFile) {
+        try {
+            zipFile.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to close archive: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.app.zecara.util;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cold start timing markers.
+ * Marks are milliseconds since the process started; timed sections also
+ * appear in system traces so they can be lined up with the first frame.
+ */
+public final class StartupTrace {
+    private static final String TAG = "StartupTrace";
+
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+    private static final Map<String, Long> durations = new LinkedHashMap<>();
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Record that a startup milestone was reached. Only the first occurrence is kept.
+     */
+    public static synchronized void mark(String name) {
+        if (!marks.containsKey(name)) {
+            long sinceStart = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+            marks.put(name, sinceStart);
+            Log.d(TAG, name + " at " + sinceStart + " ms");
+        }
+    }
+
+    /**
+     * Start a timed section; pair with {@link #endSection(String, long)}
+     * @return Start time to pass to endSection
+     */
+    public static long beginSection(String name) {
+        Trace.beginSection(name);
+        return SystemClock.uptimeMillis();
+    }
+
+    /**
+     * End a timed section. Repeated sections with the same name are summed.
+     */
+    public static void endSection(String name, long startTime) {
+        Trace.endSection();
+        long duration = SystemClock.uptimeMillis() - startTime;
+        synchronized (StartupTrace.class) {
+            Long total = durations.get(name);
+            durations.put(name, total == null ? duration : total + duration);
+        }
+    }
+
+    public static synchronized long getMark(String name) {
+        Long mark = marks.get(name);
+        return mark != null ? mark : -1;
+    }
+
+    public static synchronized long getDuration(String name) {
+        Long duration = durations.get(name);
+        return duration != null ? duration : 0;
+    }
+
+    public static synchronized String summary() {
+        StringBuilder sb = new StringBuilder("Startup:");
+        for (Map.Entry<String, Long> mark : marks.entrySet()) {
+            sb.append(' ').append(mark.getKey()).append('=').append(mark.getValue()).append("ms");
+        }
+        for (Map.Entry<String, Long> duration : durations.entrySet()) {
+            sb.append(' ').append(duration.getKey()).append("+=").append(duration.getValue()).append("ms");
+        }
+        return sb.toString();
+    }
+}
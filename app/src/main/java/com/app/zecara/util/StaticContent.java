@@ -0,0 +1,135 @@
+package com.app.zecara.util;
+
+import android.graphics.Bitmap;
+import android.text.Html;
+import android.text.Spanned;
+import android.util.LruCache;
+
+import com.app.zecara.model.ContentItem;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which feed items can be drawn without a live WebView.
+ * Inline HTML with no scripts, event handlers, form controls or media does not
+ * need a renderer process once it has been drawn. Plain text markup goes
+ * straight into a TextView card; styled or laid-out markup is rendered once in
+ * a pooled WebView and the card then shows a cached snapshot of it.
+ * Projects always count as interactive.
+ */
+public final class StaticContent {
+    public static final String RENDER_STATIC = "static";
+    public static final String RENDER_INTERACTIVE = "interactive";
+
+    // Anything that needs a script engine, user input or a media pipeline
+    private static final Pattern INTERACTIVE = Pattern.compile(
+            "<\\s*(script|button|input|select|textarea|form|video|audio|canvas|iframe|object|embed|svg)\\b"
+                    + "|\\son[a-z]+\\s*=|javascript:",
+            Pattern.CASE_INSENSITIVE);
+
+    // Markup Html.fromHtml cannot reproduce: stylesheets and titles would show as text,
+    // images as a placeholder glyph, and tables or inline layout styles collapse
+    private static final Pattern STYLED = Pattern.compile(
+            "<\\s*(style|link|title|head|img|picture|table)\\b|\\sstyle\\s*=",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * How an item's content is drawn
+     */
+    private enum Kind {
+        INTERACTIVE, // Live WebView
+        TEXT,        // Styled text in a TextView
+        SNAPSHOT     // Bitmap of a one-off WebView render
+    }
+
+    // Main thread only; weak so items of a replaced feed page drop out on their own
+    private static final Map<ContentItem, Kind> decisions = new WeakHashMap<>();
+
+    // Rendered snapshots by content key and width; a few full-width cards fit, the rest re-render
+    private static final LruCache<String, Bitmap> snapshots = new LruCache<String, Bitmap>(
+            (int) Math.min(8 * 1024 * 1024, Runtime.getRuntime().maxMemory() / 16)) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+
+    private StaticContent() {
+    }
+
+    /**
+     * Whether the item can be shown without a live WebView.
+     * An explicit {@link ContentItem#getRenderMode()} wins over detection.
+     */
+    public static boolean isStatic(ContentItem item) {
+        return kindOf(item) != Kind.INTERACTIVE;
+    }
+
+    /**
+     * Whether a static item has to be rendered by a WebView once and shown as a snapshot,
+     * because {@link #render} cannot reproduce its styling
+     */
+    public static boolean needsSnapshot(ContentItem item) {
+        return kindOf(item) == Kind.SNAPSHOT;
+    }
+
+    private static Kind kindOf(ContentItem item) {
+        Kind kind = decisions.get(item);
+        if (kind == null) {
+            kind = detect(item);
+            decisions.put(item, kind);
+        }
+        return kind;
+    }
+
+    private static Kind detect(ContentItem item) {
+        String html = item.getHtmlContent();
+        if (RENDER_STATIC.equals(item.getRenderMode())) {
+            if (html == null) {
+                return Kind.INTERACTIVE;
+            }
+            // Opted in, so a first frame of anything richer than text is what the card shows
+            return STYLED.matcher(html).find() || INTERACTIVE.matcher(html).find() ? Kind.SNAPSHOT : Kind.TEXT;
+        }
+        if (RENDER_INTERACTIVE.equals(item.getRenderMode())) {
+            return Kind.INTERACTIVE;
+        }
+        if (item.getProjectUrl() != null && !item.getProjectUrl().isEmpty()
+                || item.getProjectPath() != null && !item.getProjectPath().isEmpty()) {
+            return Kind.INTERACTIVE;
+        }
+        if (html == null || html.isEmpty() || INTERACTIVE.matcher(html).find()) {
+            return Kind.INTERACTIVE;
+        }
+        return STYLED.matcher(html).find() ? Kind.SNAPSHOT : Kind.TEXT;
+    }
+
+    /**
+     * Convert plain static HTML to styled text; the fullscreen viewer still renders
+     * the original in a WebView
+     */
+    public static Spanned render(String html) {
+        return Html.fromHtml(html, Html.FROM_HTML_MODE_COMPACT);
+    }
+
+    /**
+     * @param key {@link WebViewPool#contentKey} of the item
+     * @return The cached snapshot at this width, or null if it has to be rendered
+     */
+    public static Bitmap getSnapshot(String key, int width) {
+        return snapshots.get(key + "/" + width);
+    }
+
+    public static void putSnapshot(String key, int width, Bitmap snapshot) {
+        snapshots.put(key + "/" + width, snapshot);
+    }
+
+    /**
+     * Drop cached snapshots; cards re-render them when they are next bound
+     */
+    public static void trimSnapshots() {
+        snapshots.evictAll();
+    }
+}
@@ -1,32 +1,148 @@
 package com.app.zecara.util;
 
 import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import com.app.zecara.model.ContentItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * WebView Pool Manager for efficient WebView reuse in RecyclerView
  * Reduces WebView creation/destruction overhead and memory usage
+ *
+ * Acquiring never blocks: when the pool is exhausted the caller gets a ticket
+ * and its callback runs on the main thread as soon as a WebView is released.
+ * Released WebViews keep their document. A caller asking again for the same
+ * content key gets the WebView that last rendered it back untouched; other
+ * callers get the least recently released one, wiped first.
+ * Idle WebViews are paused; WebViews in use run only while a host activity
+ * is resumed. A rendered WebView can be handed off to another screen (the
+ * fullscreen viewer) and returned, keeping its document.
+ * Pool limits are set by {@link MemoryGovernor} from the device's memory and
+ * current memory pressure.
  */
 public class WebViewPool {
     private static final String TAG = "WebViewPool";
-    private static final int POOL_SIZE = 4; // Maximum number of WebViews to keep in pool
-    private static final int MAX_POOL_SIZE = 6; // Hard limit to prevent memory issues
-    
+    // WebView.onPause stops animations but not media, so idle pages are told to pause it too
+    private static final String PAUSE_MEDIA_JS =
+            "document.querySelectorAll('video,audio').forEach(function(m){m.pause();});";
+    private static final char KEY_SEPARATOR = '@';
+    private static final long HAND_OFF_CLAIM_TIMEOUT_MS = 5000; // A screen that has not claimed by then never will
     private static WebViewPool instance;
-    private final BlockingQueue<WebView> pool;
+    private final ArrayDeque<WebView> pool = new ArrayDeque<>(); // Idle, least recently released first
+    private final Map<WebView, String> contentKeys = new HashMap<>(); // Content each WebView's document shows
+    private final ArrayDeque<AcquireTicket> waiters = new ArrayDeque<>();
     private final Context context;
-    private int createdWebViews = 0;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger createdWebViews = new AtomicInteger();
+    private final Map<WebView, PageListener> pageListeners = new HashMap<>(); // Main thread only
+    private final Set<WebView> activeWebViews = new HashSet<>(); // Acquired and not yet released, main thread only
+    private final Map<String, HandOff> handOffs = new HashMap<>(); // Content key -> WebView lent to another screen, main thread only
+    private int resumedHosts; // Activities showing WebViews that are currently resumed
+    private volatile int poolSize; // Maximum number of WebViews to keep in pool
+    private volatile int maxPoolSize; // Hard limit to prevent memory issues
+    private boolean warmUpScheduled;
+    private int acquireCount;
+    private int retainedCount;
+    private int waitCount;
+    private long totalWaitMs;
+    private long maxWaitMs;
+    
+    // Shared by every WebView in feed mode; per-WebView behaviour goes through pageListeners
+    private final WebViewClient feedClient = new WebViewClient() {
+        @Override
+        public boolean shouldOverrideUrlLoading(WebView view, String url) {
+            return false; // Allow navigation within WebView
+        }
+        
+        @Override
+        public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+            // Serve project resources that live inside an archive
+            return ProjectResourceServer.getInstance(context).intercept(request);
+        }
+        
+        @Override
+        public void onPageFinished(WebView view, String url) {
+            PageListener listener = pageListeners.get(view);
+            if (listener != null && !"about:blank".equals(url)) {
+                listener.onPageFinished(view, url);
+            }
+        }
+    };
+    
+    /**
+     * Receives a WebView once one is available, always on the main thread
+     */
+    public interface AcquireCallback {
+        /**
+         * @param contentRetained True if the WebView still shows the requested content,
+         *                        false if it is blank and the content must be loaded
+         */
+        void onWebViewReady(WebView webView, boolean contentRetained);
+    }
+    
+    /**
+     * Notified when a pooled WebView finishes loading a page, on the main thread
+     */
+    public interface PageListener {
+        void onPageFinished(WebView webView, String url);
+    }
+    
+    /**
+     * Handle for a pending acquire. Cancel it if the caller no longer needs a WebView
+     * (e.g. its ViewHolder was recycled) so the WebView goes to the next waiter.
+     */
+    public class AcquireTicket {
+        private final String contentKey;
+        private final AcquireCallback callback;
+        private final long requestTime = SystemClock.uptimeMillis();
+        private boolean cancelled;
+        private boolean fulfilled;
+        
+        AcquireTicket(String contentKey, AcquireCallback callback) {
+            this.contentKey = contentKey;
+            this.callback = callback;
+        }
+        
+        public void cancel() {
+            synchronized (WebViewPool.this) {
+                cancelled = true;
+                waiters.remove(this);
+            }
+        }
+        
+        public boolean isPending() {
+            synchronized (WebViewPool.this) {
+                return !cancelled && !fulfilled;
+            }
+        }
+    }
     
     private WebViewPool(Context context) {
         this.context = context.getApplicationContext();
-        this.pool = new LinkedBlockingQueue<>(MAX_POOL_SIZE);
+        MemoryGovernor governor = MemoryGovernor.getInstance(context);
+        this.poolSize = governor.getPoolSize();
+        this.maxPoolSize = governor.getMaxPoolSize();
         initializePool();
+        governor.setWebViewPool(this);
     }
     
     public static synchronized WebViewPool getInstance(Context context) {
@@ -37,23 +153,90 @@ public class WebViewPool {
     }
     
     /**
-     * Pre-create WebViews for the pool
+     * The pool if it has been created; never creates it, so safe off the main thread
+     */
+    static synchronized WebViewPool peekInstance() {
+        return instance;
+    }
+    
+    /**
+     * Key for what an item renders: its id, a hash of its content and, for downloaded
+     * projects, the install revision. An item that keeps its id but changes its content,
+     * or whose project was updated, gets a different key, so a stale document is never
+     * handed back as retained.
+     */
+    public static String contentKey(ContentItem item) {
+        if (item.getId() == null) {
+            return null;
+        }
+        int contentHash = Objects.hash(item.getHtmlContent(), item.getProjectPath(),
+                item.getProjectUrl(), item.getRenderMode());
+        StringBuilder key = new StringBuilder(item.getId())
+                .append(KEY_SEPARATOR).append(Integer.toHexString(contentHash));
+        if (item.getProjectUrl() != null && !item.getProjectUrl().isEmpty()) {
+            key.append(KEY_SEPARATOR).append(Html5ProjectManager.getInstallRevision(item.getId()));
+        }
+        return key.toString();
+    }
+    
+    /**
+     * Pre-create the first WebView. It also loads the WebView provider, so the
+     * remaining ones are cheaper and are created later by {@link #warmUpWhenIdle()}.
      */
     private void initializePool() {
-        Log.d(TAG, "Initializing WebView pool with " + POOL_SIZE + " WebViews");
+        Log.d(TAG, "Initializing WebView pool, target " + poolSize + " WebViews (max " + maxPoolSize + ")");
         
-        for (int i = 0; i < POOL_SIZE; i++) {
+        if (poolSize > 0) {
+            long start = StartupTrace.beginSection("WebViewPool.init");
+            createdWebViews.incrementAndGet();
             WebView webView = createConfiguredWebView();
-            pool.offer(webView);
+            synchronized (this) {
+                pool.offer(webView);
+            }
+            StartupTrace.endSection("WebViewPool.init", start);
+        }
+    }
+    
+    /**
+     * Fill the rest of the pool while the main thread is idle, one WebView per idle pass,
+     * so warm-up never delays a frame. Call after the first frame has been drawn.
+     */
+    public void warmUpWhenIdle() {
+        synchronized (this) {
+            if (warmUpScheduled) {
+                return;
+            }
+            warmUpScheduled = true;
         }
+        Looper.getMainLooper().getQueue().addIdleHandler(() -> {
+            synchronized (this) {
+                if (pool.size() >= poolSize || !waiters.isEmpty()) {
+                    // Full, or demand is already creating WebViews on its own
+                    Log.d(TAG, "Pool warm-up finished with " + pool.size() + " idle WebViews");
+                    StartupTrace.mark("pool_warm");
+                    return false;
+                }
+            }
+            if (!reserveWebViewSlot()) {
+                return false;
+            }
+            long start = StartupTrace.beginSection("WebViewPool.warmUp");
+            WebView webView = createConfiguredWebView();
+            StartupTrace.endSection("WebViewPool.warmUp", start);
+            synchronized (this) {
+                pool.offer(webView);
+            }
+            return true; // Run again on the next idle pass
+        });
     }
     
     /**
-     * Create a new WebView with standard configuration for HTML5 content
+     * Create a new WebView with standard configuration for HTML5 content.
+     * The caller must already have counted it in createdWebViews.
      */
     private WebView createConfiguredWebView() {
-        WebView webView = new WebView(context);
-        createdWebViews++;
+        // The context wrapper lets a handed-off WebView run against the hosting activity
+        WebView webView = new WebView(new MutableContextWrapper(context));
         
         // Configure WebView settings
         WebSettings webSettings = webView.getSettings();
@@ -61,61 +244,303 @@ public class WebViewPool {
         webSettings.setDomStorageEnabled(true);
         webSettings.setLoadWithOverviewMode(true);
         webSettings.setUseWideViewPort(true);
+        webSettings.setAllowFileAccess(true);
+        webSettings.setAllowContentAccess(true);
+        applyFeedMode(webView);
+        
+        // Stays paused until it is handed out
+        webView.onPause();
+        
+        FeedTelemetry.increment(FeedTelemetry.Counter.POOL_CREATES);
+        Log.d(TAG, "Created WebView #" + createdWebViews.get());
+        return webView;
+    }
+    
+    /**
+     * Settings for a non-interactive feed tile
+     */
+    private void applyFeedMode(WebView webView) {
+        WebSettings webSettings = webView.getSettings();
         webSettings.setBuiltInZoomControls(false);
         webSettings.setDisplayZoomControls(false);
         webSettings.setSupportZoom(false);
-        webSettings.setAllowFileAccess(true);
-        webSettings.setAllowContentAccess(true);
         
         // Disable touch interactions for feed items
         webView.setClickable(false);
         webView.setFocusable(false);
         webView.setFocusableInTouchMode(false);
         
-        // Set WebViewClient
-        webView.setWebViewClient(new WebViewClient() {
-            @Override
-            public boolean shouldOverrideUrlLoading(WebView view, String url) {
-                return false; // Allow navigation within WebView
-            }
-        });
-        
-        Log.d(TAG, "Created WebView #" + createdWebViews);
-        return webView;
+        webView.setWebViewClient(feedClient);
     }
     
     /**
-     * Acquire a WebView from the pool
-     * @return A configured WebView ready for use
+     * A WebView lent to another screen
      */
-    public WebView acquireWebView() {
-        WebView webView = pool.poll();
+    private static class HandOff {
+        final WebView webView;
+        boolean claimed; // A screen is showing it
         
-        if (webView == null) {
-            // Pool is empty, create a new WebView if under limit
-            if (createdWebViews < MAX_POOL_SIZE) {
-                webView = createConfiguredWebView();
-                Log.d(TAG, "Pool empty, created new WebView. Total: " + createdWebViews);
-            } else {
-                Log.w(TAG, "Pool exhausted and at max limit (" + MAX_POOL_SIZE + "). Waiting for WebView...");
-                try {
-                    webView = pool.take(); // Block until one is available
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return createConfiguredWebView(); // Fallback
-                }
+        HandOff(WebView webView) {
+            this.webView = webView;
+        }
+    }
+    
+    /**
+     * Lend a WebView in use to another screen, keeping its document.
+     * The caller stops using it; the receiving screen picks it up with
+     * {@link #claimHandOff} and gives it back with {@link #returnHandOff}.
+     * The WebView leaves the pool's active set, so only the receiving screen
+     * pauses and resumes it. If no screen claims it in time it returns to the pool.
+     * @return false if another WebView for this content is still shown by a screen;
+     *         the caller then keeps its WebView
+     */
+    public boolean beginHandOff(String contentKey, WebView webView) {
+        HandOff previous = handOffs.get(contentKey);
+        if (previous != null && previous.webView != webView) {
+            if (previous.claimed) {
+                Log.d(TAG, "Hand-off refused, previous WebView still shown for: " + contentKey);
+                return false;
+            }
+            // Never claimed, so no screen shows it
+            handOffs.remove(contentKey);
+            activeWebViews.add(previous.webView); // So releasing pauses it
+            releaseWebView(previous.webView);
+        }
+        HandOff handOff = new HandOff(webView);
+        handOffs.put(contentKey, handOff);
+        mainHandler.postDelayed(() -> reclaimIfUnclaimed(contentKey, handOff), HAND_OFF_CLAIM_TIMEOUT_MS);
+        activeWebViews.remove(webView);
+        pageListeners.remove(webView);
+        detachFromParent(webView);
+        setBaseContext(webView, context); // Do not hold on to the previous host activity
+        Log.d(TAG, "WebView handed off for: " + contentKey);
+        return true;
+    }
+    
+    /**
+     * Take a WebView handed off for this content. The caller owns its settings
+     * and WebViewClient until it is returned.
+     * @param hostContext Activity that will show the WebView
+     * @return The WebView with its document intact, or null if none was handed off
+     *         or another screen already claimed it
+     */
+    public WebView claimHandOff(String contentKey, Context hostContext) {
+        HandOff handOff = handOffs.get(contentKey);
+        if (handOff == null || handOff.claimed) {
+            return null;
+        }
+        handOff.claimed = true;
+        setBaseContext(handOff.webView, hostContext);
+        return handOff.webView;
+    }
+    
+    /**
+     * Give a handed-off WebView back. It switches back to feed settings and
+     * returns to the pool with its document, so the tile gets it back without reloading.
+     */
+    public void returnHandOff(String contentKey, WebView webView) {
+        HandOff handOff = handOffs.get(contentKey);
+        if (handOff != null && handOff.webView == webView) {
+            handOffs.remove(contentKey);
+        }
+        detachFromParent(webView);
+        setBaseContext(webView, context);
+        applyFeedMode(webView);
+        setContentKey(webView, contentKey);
+        activeWebViews.add(webView); // So releasing pauses it
+        releaseWebView(webView);
+        Log.d(TAG, "WebView returned from hand-off for: " + contentKey);
+    }
+    
+    /**
+     * Return every handed-off WebView no screen has claimed, e.g. because the receiving
+     * activity failed to start. Call when the lending screen resumes.
+     */
+    public void reclaimUnclaimedHandOffs() {
+        for (Map.Entry<String, HandOff> entry : new ArrayList<>(handOffs.entrySet())) {
+            reclaimIfUnclaimed(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    private void reclaimIfUnclaimed(String contentKey, HandOff handOff) {
+        if (handOffs.get(contentKey) == handOff && !handOff.claimed) {
+            Log.d(TAG, "Hand-off never claimed, reclaiming WebView for: " + contentKey);
+            returnHandOff(contentKey, handOff.webView);
+        }
+    }
+    
+    private static void setBaseContext(WebView webView, Context baseContext) {
+        if (webView.getContext() instanceof MutableContextWrapper) {
+            ((MutableContextWrapper) webView.getContext()).setBaseContext(baseContext);
+        }
+    }
+    
+    /**
+     * Whether the WebView for this content is currently lent to another screen
+     */
+    public boolean isHandedOff(String contentKey) {
+        return contentKey != null && handOffs.containsKey(contentKey);
+    }
+    
+    /**
+     * Acquire a WebView from the pool. Must be called on the main thread.
+     * If a WebView is available (or one can be created under the limit) the callback
+     * runs immediately; otherwise it runs when another caller releases one.
+     * @param contentKey {@link #contentKey} of the content to show, used to get back a WebView that still shows it
+     * @param callback Receives a WebView ready for use
+     * @return Ticket that can cancel the request while it is still pending
+     */
+    public AcquireTicket acquireWebView(String contentKey, AcquireCallback callback) {
+        AcquireTicket ticket = new AcquireTicket(contentKey, callback);
+        FeedTelemetry.increment(FeedTelemetry.Counter.POOL_ACQUIRES);
+        WebView webView;
+        synchronized (this) {
+            acquireCount++;
+            webView = takeIdle(contentKey);
+            if (webView == null && !reserveWebViewSlot()) {
+                Log.w(TAG, "Pool exhausted and at max limit (" + maxPoolSize + "). Queueing request...");
+                waiters.offer(ticket);
+                return ticket;
             }
         }
         
-        // Clear previous content
-        clearWebView(webView);
+        if (webView != null) {
+            FeedTelemetry.increment(FeedTelemetry.Counter.POOL_HITS);
+        } else {
+            // Pool is empty but under the limit; the slot was reserved above
+            webView = createConfiguredWebView();
+            Log.d(TAG, "Pool empty, created new WebView. Total: " + createdWebViews.get());
+        }
         
-        Log.d(TAG, "WebView acquired. Pool size: " + pool.size());
-        return webView;
+        deliver(ticket, webView);
+        return ticket;
+    }
+    
+    /**
+     * Take the idle WebView that last showed this content, else a blank one,
+     * else the least recently released one
+     */
+    private synchronized WebView takeIdle(String contentKey) {
+        WebView blank = null;
+        for (WebView webView : pool) {
+            String key = contentKeys.get(webView);
+            if (contentKey != null && contentKey.equals(key)) {
+                pool.remove(webView);
+                return webView;
+            }
+            if (key == null && blank == null) {
+                blank = webView;
+            }
+        }
+        if (blank != null) {
+            pool.remove(blank);
+            return blank;
+        }
+        return pool.poll();
+    }
+    
+    /**
+     * Count one more WebView if the pool is under its limit
+     */
+    private boolean reserveWebViewSlot() {
+        while (true) {
+            int current = createdWebViews.get();
+            if (current >= maxPoolSize) {
+                return false;
+            }
+            if (createdWebViews.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private void deliver(AcquireTicket ticket, WebView webView) {
+        boolean retained;
+        synchronized (this) {
+            ticket.fulfilled = true;
+            String key = contentKeys.get(webView);
+            retained = key != null && key.equals(ticket.contentKey);
+            if (retained) {
+                retainedCount++;
+            }
+        }
+        if (!retained) {
+            // Evict whatever document it showed before
+            clearWebView(webView);
+        }
+        activeWebViews.add(webView);
+        if (resumedHosts > 0) {
+            webView.onResume();
+        }
+        Log.d(TAG, "WebView acquired" + (retained ? " with content retained" : "")
+                + ". Pool size: " + getAvailableCount());
+        ticket.callback.onWebViewReady(webView, retained);
+    }
+    
+    /**
+     * Record which content an acquired WebView has finished loading,
+     * so it can be handed back for the same content after release
+     */
+    public synchronized void setContentKey(WebView webView, String contentKey) {
+        if (contentKey == null) {
+            contentKeys.remove(webView);
+        } else {
+            contentKeys.put(webView, contentKey);
+        }
+    }
+    
+    /**
+     * Whether a pooled WebView, in use or idle, holds a document for any version of this item
+     * @param id Item id, the first part of its {@link #contentKey}
+     */
+    synchronized boolean isShowingContent(String id) {
+        String prefix = id + KEY_SEPARATOR;
+        for (String key : contentKeys.values()) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Change how many idle WebViews are kept and how many may exist at once.
+     * Idle WebViews over the new limits are destroyed now; WebViews in use
+     * over the limit are destroyed when they are released.
+     */
+    void setLimits(int poolSize, int maxPoolSize) {
+        List<WebView> excess = new ArrayList<>();
+        synchronized (this) {
+            this.poolSize = poolSize;
+            this.maxPoolSize = maxPoolSize;
+            while (!pool.isEmpty()
+                    && (pool.size() > poolSize || createdWebViews.get() - excess.size() > maxPoolSize)) {
+                excess.add(pool.pollFirst());
+            }
+        }
+        for (WebView webView : excess) {
+            destroyWebView(webView);
+        }
+        Log.d(TAG, "Pool limits set to " + poolSize + " idle / " + maxPoolSize + " max, destroyed "
+                + excess.size() + " idle WebViews");
+        // A raised limit may leave room for requests that are still queued
+        drainWaiters();
+    }
+    
+    /**
+     * Listen for page loads in an acquired WebView. Cleared automatically on release.
+     */
+    public void setPageListener(WebView webView, PageListener listener) {
+        if (listener == null) {
+            pageListeners.remove(webView);
+        } else {
+            pageListeners.put(webView, listener);
+        }
     }
     
     /**
-     * Release a WebView back to the pool
+     * Release a WebView back to the pool. Its document is kept until the
+     * WebView is handed to different content or evicted.
      * @param webView The WebView to return to the pool
      */
     public void releaseWebView(WebView webView) {
@@ -123,37 +548,175 @@ public class WebViewPool {
             return;
         }
         
-        // Clear content and reset state
-        clearWebView(webView);
+        pageListeners.remove(webView);
+        detachFromParent(webView);
+        pauseWebView(webView);
         
-        // Return to pool if there's space
-        boolean added = pool.offer(webView);
+        // Hand it straight to the longest-waiting request, if any. Over the limit (e.g. after a
+        // trim lowered it) it is destroyed instead, and waiters get WebViews created within the limit.
+        AcquireTicket waiter = null;
+        boolean added = false;
+        List<WebView> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (createdWebViews.get() <= maxPoolSize) {
+                waiter = waiters.poll();
+                if (waiter == null) {
+                    added = pool.offer(webView);
+                    // Keep the most recently released documents
+                    while (pool.size() > poolSize) {
+                        evicted.add(pool.pollFirst());
+                    }
+                }
+            }
+        }
         
-        if (added) {
-            Log.d(TAG, "WebView returned to pool. Pool size: " + pool.size());
+        if (waiter != null) {
+            handToWaiter(waiter, webView);
+        } else if (added) {
+            Log.d(TAG, "WebView returned to pool. Pool size: " + getAvailableCount());
         } else {
-            Log.d(TAG, "Pool full, destroying WebView");
+            Log.d(TAG, "Pool over its limit, destroying WebView");
             destroyWebView(webView);
         }
+        for (WebView evictedWebView : evicted) {
+            Log.d(TAG, "Pool full, evicting least recently used WebView");
+            destroyWebView(evictedWebView);
+        }
+        if (!added && waiter == null) {
+            drainWaiters();
+        }
+    }
+    
+    /**
+     * Serve queued acquires from idle WebViews or free slots. Call on the main thread
+     * after anything that frees capacity: raised limits or destroyed WebViews.
+     */
+    private void drainWaiters() {
+        while (true) {
+            AcquireTicket waiter;
+            WebView webView;
+            synchronized (this) {
+                if (waiters.isEmpty()) {
+                    return;
+                }
+                webView = takeIdle(waiters.peek().contentKey);
+                if (webView == null && !reserveWebViewSlot()) {
+                    return;
+                }
+                waiter = waiters.poll();
+            }
+            if (webView == null) {
+                webView = createConfiguredWebView();
+                Log.d(TAG, "Capacity freed, created WebView for waiting request. Total: " + createdWebViews.get());
+            }
+            handToWaiter(waiter, webView);
+        }
+    }
+    
+    private void handToWaiter(AcquireTicket waiter, WebView webView) {
+        long waitMs = SystemClock.uptimeMillis() - waiter.requestTime;
+        synchronized (this) {
+            waitCount++;
+            totalWaitMs += waitMs;
+            maxWaitMs = Math.max(maxWaitMs, waitMs);
+        }
+        FeedTelemetry.record(FeedTelemetry.Metric.POOL_WAIT_MS, waitMs);
+        Log.d(TAG, "WebView handed to waiting request after " + waitMs + " ms");
+        // Post so the waiter does not run inside the releasing caller's stack
+        mainHandler.post(() -> {
+            if (waiter.isPending()) {
+                deliver(waiter, webView);
+            } else {
+                releaseWebView(webView);
+            }
+        });
+    }
+    
+    /**
+     * Stop an idle WebView using CPU. Detached pages are also treated as hidden
+     * by the renderer, which throttles their timers.
+     */
+    private void pauseWebView(WebView webView) {
+        if (activeWebViews.remove(webView)) {
+            webView.evaluateJavascript(PAUSE_MEDIA_JS, null);
+            webView.onPause();
+        }
     }
     
     /**
-     * Clear WebView content and reset state for reuse
+     * Call from an activity's onResume when it shows WebViews
+     * @param hostWebView A WebView the activity owns outside the pool, or null
+     */
+    public void onHostResumed(WebView hostWebView) {
+        resumedHosts++;
+        if (resumedHosts > 1) {
+            return;
+        }
+        WebView anyWebView = hostWebView != null ? hostWebView : findAnyWebView();
+        if (anyWebView != null) {
+            // Timers are process-wide; any WebView controls them for all
+            anyWebView.resumeTimers();
+        }
+        for (WebView webView : activeWebViews) {
+            webView.onResume();
+        }
+        Log.d(TAG, "Host resumed, resumed " + activeWebViews.size() + " WebViews");
+    }
+    
+    /**
+     * Call from an activity's onPause when it shows WebViews.
+     * Once no host is resumed every pooled WebView and all JavaScript timers are paused.
+     * @param hostWebView A WebView the activity owns outside the pool, or null
+     */
+    public void onHostPaused(WebView hostWebView) {
+        resumedHosts = Math.max(0, resumedHosts - 1);
+        if (resumedHosts > 0) {
+            return;
+        }
+        for (WebView webView : activeWebViews) {
+            webView.onPause();
+        }
+        WebView anyWebView = hostWebView != null ? hostWebView : findAnyWebView();
+        if (anyWebView != null) {
+            anyWebView.pauseTimers();
+        }
+        Log.d(TAG, "All hosts paused, paused " + activeWebViews.size() + " WebViews and timers");
+    }
+    
+    private WebView findAnyWebView() {
+        if (!activeWebViews.isEmpty()) {
+            return activeWebViews.iterator().next();
+        }
+        synchronized (this) {
+            return pool.peek();
+        }
+    }
+    
+    /**
+     * Clear WebView content and reset state for reuse by different content.
+     * The HTTP cache is shared by every WebView and is deliberately left alone.
      */
     private void clearWebView(WebView webView) {
         if (webView != null) {
+            setContentKey(webView, null);
+            
             // Clear content
             webView.loadUrl("about:blank");
             webView.clearHistory();
-            webView.clearCache(true);
             
-            // Remove from parent if attached (layout parameters will be set by new parent)
-            if (webView.getParent() != null) {
-                try {
-                    ((android.view.ViewGroup) webView.getParent()).removeView(webView);
-                } catch (Exception e) {
-                    Log.w(TAG, "Could not remove WebView from parent: " + e.getMessage());
-                }
+            detachFromParent(webView);
+        }
+    }
+    
+    /**
+     * Remove from parent if attached (layout parameters will be set by new parent)
+     */
+    private void detachFromParent(WebView webView) {
+        if (webView.getParent() != null) {
+            try {
+                ((android.view.ViewGroup) webView.getParent()).removeView(webView);
+            } catch (Exception e) {
+                Log.w(TAG, "Could not remove WebView from parent: " + e.getMessage());
             }
         }
     }
@@ -163,18 +726,27 @@ public class WebViewPool {
      */
     private void destroyWebView(WebView webView) {
         if (webView != null) {
+            setContentKey(webView, null);
+            pageListeners.remove(webView);
+            activeWebViews.remove(webView);
             webView.removeAllViews();
             webView.destroy();
-            createdWebViews--;
-            Log.d(TAG, "WebView destroyed. Total: " + createdWebViews);
+            int total = createdWebViews.decrementAndGet();
+            FeedTelemetry.increment(FeedTelemetry.Counter.POOL_DESTROYS);
+            Log.d(TAG, "WebView destroyed. Total: " + total);
         }
     }
     
     /**
      * Get current pool statistics
      */
-    public PoolStats getStats() {
-        return new PoolStats(pool.size(), createdWebViews, MAX_POOL_SIZE);
+    public synchronized PoolStats getStats() {
+        return new PoolStats(pool.size(), createdWebViews.get(), maxPoolSize,
+                acquireCount, retainedCount, waitCount, waiters.size(), totalWaitMs, maxWaitMs);
+    }
+    
+    private synchronized int getAvailableCount() {
+        return pool.size();
     }
     
     /**
@@ -185,11 +757,16 @@ public class WebViewPool {
         Log.d(TAG, "Clearing WebView pool...");
         
         WebView webView;
-        while ((webView = pool.poll()) != null) {
+        while ((webView = pollIdle()) != null) {
             destroyWebView(webView);
         }
         
-        Log.d(TAG, "WebView pool cleared. Remaining WebViews: " + createdWebViews);
+        Log.d(TAG, "WebView pool cleared. Remaining WebViews: " + createdWebViews.get());
+        drainWaiters();
+    }
+    
+    private synchronized WebView pollIdle() {
+        return pool.poll();
     }
     
     /**
@@ -199,17 +776,37 @@ public class WebViewPool {
         public final int availableWebViews;
         public final int totalWebViews;
         public final int maxPoolSize;
+        public final int acquires;
+        public final int retainedAcquires; // Acquires that got their content back without reloading
+        public final int waitedAcquires;
+        public final int pendingAcquires;
+        public final long totalWaitMs;
+        public final long maxWaitMs;
         
-        PoolStats(int available, int total, int max) {
+        PoolStats(int available, int total, int max, int acquires, int retainedAcquires,
+                  int waitedAcquires, int pendingAcquires, long totalWaitMs, long maxWaitMs) {
             this.availableWebViews = available;
             this.totalWebViews = total;
             this.maxPoolSize = max;
+            this.acquires = acquires;
+            this.retainedAcquires = retainedAcquires;
+            this.waitedAcquires = waitedAcquires;
+            this.pendingAcquires = pendingAcquires;
+            this.totalWaitMs = totalWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+        
+        public long getAverageWaitMs() {
+            return waitedAcquires == 0 ? 0 : totalWaitMs / waitedAcquires;
         }
         
         @Override
         public String toString() {
-            return String.format("WebView Pool: %d/%d available, %d total created", 
-                    availableWebViews, maxPoolSize, totalWebViews);
+            return String.format("WebView Pool: %d/%d available, %d total created, " +
+                            "%d/%d acquires retained content, " +
+                            "%d waited (avg %d ms, max %d ms), %d pending",
+                    availableWebViews, maxPoolSize, totalWebViews,
+                    retainedAcquires, acquires, waitedAcquires, getAverageWaitMs(), maxWaitMs, pendingAcquires);
         }
     }
 }